@@ -13,5 +13,7 @@ module uk.ac.soton.comp1206 {
     exports uk.ac.soton.comp1206.event;
     exports uk.ac.soton.comp1206.component;
     exports uk.ac.soton.comp1206.game;
+    exports uk.ac.soton.comp1206.core;
+    exports uk.ac.soton.comp1206.bot;
   exports uk.ac.soton.comp1206.media;
 }
\ No newline at end of file
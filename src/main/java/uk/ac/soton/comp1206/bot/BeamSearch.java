@@ -0,0 +1,490 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.core.Board;
+import uk.ac.soton.comp1206.core.GameEngine;
+import uk.ac.soton.comp1206.core.GamePiece;
+import uk.ac.soton.comp1206.core.MoveList;
+import uk.ac.soton.comp1206.core.Player;
+
+/**
+ * A beam search over the placements of the current and following piece.
+ * <p>
+ * The first level places either piece, swapping first for the following one, and every resulting board is scored by
+ * the evaluator. The best boards form the beam, and the second level places the other piece on each of them. A move
+ * is worth the best board it leads to, so the search finds moves which set up the next piece.
+ * <p>
+ * Boards are built and scored in parallel on a fork-join pool, which is the common pool unless another is given, so
+ * the search uses every core. Without a pool the search runs on the calling thread, for running many games at once.
+ * The second level stops taking new beam boards once the time budget has run out, and the moves it did not reach are
+ * judged on the first level alone. With an UNLIMITED budget the whole beam is always searched, so the move depends
+ * only on the position and not on how busy the machine is, which seeded comparisons of bots need. Node counts and nodes per second are kept so the speed of the search can be
+ * watched when bots are used to generate load.
+ */
+public class BeamSearch implements Player {
+
+  /**
+   * logger for beam search
+   */
+  private static final Logger logger = LogManager.getLogger(BeamSearch.class);
+
+  /**
+   * the most boards built by one task before it is split in two
+   */
+  private static final int GRAIN = 16;
+
+  /**
+   * a budget with no deadline, the whole beam is searched however long it takes
+   */
+  public static final long UNLIMITED = 0;
+
+  /**
+   * scores the boards
+   */
+  private final BoardEvaluator evaluator;
+
+  /**
+   * how many first level boards are searched further
+   */
+  private final int width;
+
+  /**
+   * time budget of each search, in nanoseconds, or UNLIMITED
+   */
+  private final long budget;
+
+  /**
+   * where boards are built and scored
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * boards built since the search was created
+   */
+  private final LongAdder nodes = new LongAdder();
+
+  /**
+   * searches run since the search was created
+   */
+  private final LongAdder searches = new LongAdder();
+
+  /**
+   * time spent searching since the search was created, in nanoseconds
+   */
+  private final LongAdder searchTime = new LongAdder();
+
+  /**
+   * nodes per second of the latest search
+   */
+  private volatile double lastNodesPerSecond;
+
+  /**
+   * Create a search with the heuristic evaluator, a beam of 16 and a budget of 50 milliseconds
+   */
+  public BeamSearch() {
+    this(new HeuristicEvaluator(), 16, 50);
+  }
+
+  /**
+   * Create a search on the common fork-join pool
+   *
+   * @param evaluator scores the boards
+   * @param width     how many first level boards are searched further
+   * @param budget    time budget of each search, in milliseconds, or UNLIMITED
+   */
+  public BeamSearch(BoardEvaluator evaluator, int width, long budget) {
+    this(evaluator, width, budget, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Create a search
+   *
+   * @param evaluator scores the boards
+   * @param width     how many first level boards are searched further
+   * @param budget    time budget of each search, in milliseconds, or UNLIMITED
+   * @param pool      where boards are built and scored, or null to search on the calling thread
+   */
+  public BeamSearch(BoardEvaluator evaluator, int width, long budget, ForkJoinPool pool) {
+    if (width < 1) {
+      throw new IllegalArgumentException("Beam width must be at least 1: " + width);
+    }
+    this.evaluator = evaluator;
+    this.width = width;
+    this.budget = TimeUnit.MILLISECONDS.toNanos(budget);
+    this.pool = pool;
+  }
+
+  @Override
+  public int chooseMove(GameEngine engine, MoveList moves) {
+    return search(engine.getBoard(), engine.getCurrentPiece(), engine.getFollowingPiece());
+  }
+
+  /**
+   * Find the best move for the current piece. The board is only read, and must not change during the search.
+   *
+   * @param board          the board to play on
+   * @param currentPiece   the current piece
+   * @param followingPiece the following piece, or null if it is not known
+   * @return a move packed with MoveList.pack, with MoveList.SWAP set when the pieces should be swapped first, or -1
+   *     if neither piece fits
+   */
+  public int search(Board board, GamePiece currentPiece, GamePiece followingPiece) {
+    long start = System.nanoTime();
+    long deadline = budget == UNLIMITED ? Long.MAX_VALUE : start + budget;
+    long before = nodes.sum();
+
+    //first level, either piece
+    List<Node> first = new ArrayList<>();
+    MoveList moves = new MoveList();
+    addChildren(board, 0, currentPiece, 0, moves, first);
+    if (followingPiece != null && followingPiece.getShape() != currentPiece.getShape()) {
+      addChildren(board, 0, followingPiece, MoveList.SWAP, moves, first);
+    }
+    if (first.isEmpty()) {
+      return -1;
+    }
+    run(new Build(first, 0, first.size()));
+    first.sort((a, b) -> Double.compare(b.value, a.value));
+
+    //second level, the other piece on each board in the beam
+    List<Node> beam = first.subList(0, Math.min(width, first.size()));
+    if (followingPiece != null) {
+      run(new Deepen(beam, 0, beam.size(), currentPiece, followingPiece, deadline));
+    }
+
+    Node best = beam.get(0);
+    for (Node node : beam) {
+      if (node.best > best.best) {
+        best = node;
+      }
+    }
+
+    long time = System.nanoTime() - start;
+    long built = nodes.sum() - before;
+    searches.increment();
+    searchTime.add(time);
+    lastNodesPerSecond = time == 0 ? 0 : built * 1e9 / time;
+    logger.trace("Searched {} nodes in {}us", built, time / 1000);
+    return best.move;
+  }
+
+  /**
+   * Run a task on the pool, or on this thread when there is no pool
+   *
+   * @param task the task
+   */
+  private void run(ForkJoinTask<?> task) {
+    if (pool == null) {
+      task.invoke();
+    } else {
+      pool.invoke(task);
+    }
+  }
+
+  /**
+   * Find the best move on the pool of the search, without waiting for it
+   *
+   * @param board          the board to play on, which must not change during the search
+   * @param currentPiece   the current piece
+   * @param followingPiece the following piece, or null if it is not known
+   * @return the move search returns, once it is found
+   */
+  public CompletableFuture<Integer> searchAsync(Board board, GamePiece currentPiece, GamePiece followingPiece) {
+    return CompletableFuture.supplyAsync(() -> search(board, currentPiece, followingPiece),
+        pool == null ? ForkJoinPool.commonPool() : pool);
+  }
+
+  /**
+   * Add a node for every legal placement of a piece on a board
+   *
+   * @param board  the board to place on
+   * @param lines  lines cleared on the way to the board
+   * @param piece  the piece to place
+   * @param flags  flags to add to each packed move
+   * @param moves  reusable list for the legal moves
+   * @param result where the nodes are added
+   */
+  private static void addChildren(Board board, int lines, GamePiece piece, int flags, MoveList moves,
+      List<Node> result) {
+    board.legalMoves(piece, moves);
+    for (int i = 0; i < moves.size(); i++) {
+      int move = moves.get(i);
+      result.add(new Node(board, lines, move | flags,
+          GamePiece.createPiece(piece.getShape(), MoveList.unpackRotation(move))));
+    }
+  }
+
+  /**
+   * Place a piece and clear the lines it fills, as the engine does
+   *
+   * @param board the board to place on
+   * @param piece the piece, which must fit
+   * @param x     column of the centre of the piece
+   * @param y     row of the centre of the piece
+   * @return the number of lines cleared
+   */
+  static int place(Board board, GamePiece piece, int x, int y) {
+    board.playPiece(piece, x, y);
+    long fullRows = board.fullRows(y - 1, y + 1);
+    long fullCols = board.fullCols(x - 1, x + 1);
+    board.clearLines(fullRows, fullCols);
+    return Long.bitCount(fullRows) + Long.bitCount(fullCols);
+  }
+
+  /**
+   * Build the board of a node and score it
+   *
+   * @param node the node
+   */
+  private void build(Node node) {
+    int x = MoveList.unpackX(node.move);
+    int y = MoveList.unpackY(node.move);
+    Board board = node.parent.copy();
+    node.board = board;
+    node.lines += place(board, node.piece, x, y);
+    node.value = evaluator.evaluate(board, node.lines);
+    node.best = node.value;
+    nodes.increment();
+  }
+
+  /**
+   * Get the number of boards built since the search was created
+   *
+   * @return boards built
+   */
+  public long getNodes() {
+    return nodes.sum();
+  }
+
+  /**
+   * Get the number of searches run since the search was created
+   *
+   * @return searches run
+   */
+  public long getSearches() {
+    return searches.sum();
+  }
+
+  /**
+   * Get the average speed of every search so far
+   *
+   * @return boards built per second of searching
+   */
+  public double getNodesPerSecond() {
+    long time = searchTime.sum();
+    return time == 0 ? 0 : nodes.sum() * 1e9 / time;
+  }
+
+  /**
+   * Get the speed of the latest search
+   *
+   * @return boards built per second
+   */
+  public double getLastNodesPerSecond() {
+    return lastNodesPerSecond;
+  }
+
+  /**
+   * one placement in the search
+   */
+  private static class Node {
+
+    /**
+     * the board the piece is placed on
+     */
+    private final Board parent;
+
+    /**
+     * the first move on the way to this node
+     */
+    private final int move;
+
+    /**
+     * the piece placed, in the rotation of the move
+     */
+    private final GamePiece piece;
+
+    /**
+     * the board after the piece is placed and full lines are cleared
+     */
+    private Board board;
+
+    /**
+     * lines cleared on the way to this node
+     */
+    private int lines;
+
+    /**
+     * score of the board of this node
+     */
+    private double value;
+
+    /**
+     * score of the best board this node leads to
+     */
+    private double best;
+
+    /**
+     * Create a node which has not been built yet
+     *
+     * @param parent the board the piece is placed on
+     * @param lines  lines cleared on the way to the parent
+     * @param move   the first move on the way to this node
+     * @param piece  the piece placed
+     */
+    private Node(Board parent, int lines, int move, GamePiece piece) {
+      this.parent = parent;
+      this.lines = lines;
+      this.move = move;
+      this.piece = piece;
+    }
+  }
+
+  /**
+   * builds a range of nodes, splitting it between tasks when it is large
+   */
+  @SuppressWarnings("serial")
+  private class Build extends RecursiveAction {
+
+    /**
+     * the nodes
+     */
+    private final List<Node> nodes;
+
+    /**
+     * first node of the range
+     */
+    private final int from;
+
+    /**
+     * end of the range, exclusive
+     */
+    private final int to;
+
+    /**
+     * Create a task for a range of nodes
+     *
+     * @param nodes the nodes
+     * @param from  first node of the range
+     * @param to    end of the range, exclusive
+     */
+    private Build(List<Node> nodes, int from, int to) {
+      this.nodes = nodes;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (pool == null || to - from <= GRAIN) {
+        for (int i = from; i < to; i++) {
+          build(nodes.get(i));
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new Build(nodes, from, middle), new Build(nodes, middle, to));
+    }
+  }
+
+  /**
+   * places the other piece on a range of beam nodes, one task per node
+   */
+  @SuppressWarnings("serial")
+  private class Deepen extends RecursiveAction {
+
+    /**
+     * the beam
+     */
+    private final List<Node> beam;
+
+    /**
+     * first node of the range
+     */
+    private final int from;
+
+    /**
+     * end of the range, exclusive
+     */
+    private final int to;
+
+    /**
+     * the current piece
+     */
+    private final GamePiece currentPiece;
+
+    /**
+     * the following piece
+     */
+    private final GamePiece followingPiece;
+
+    /**
+     * nanoTime after which no more nodes are started
+     */
+    private final long deadline;
+
+    /**
+     * Create a task for a range of beam nodes
+     *
+     * @param beam           the beam
+     * @param from           first node of the range
+     * @param to             end of the range, exclusive
+     * @param currentPiece   the current piece
+     * @param followingPiece the following piece
+     * @param deadline       nanoTime after which no more nodes are started
+     */
+    private Deepen(List<Node> beam, int from, int to, GamePiece currentPiece, GamePiece followingPiece,
+        long deadline) {
+      this.beam = beam;
+      this.from = from;
+      this.to = to;
+      this.currentPiece = currentPiece;
+      this.followingPiece = followingPiece;
+      this.deadline = deadline;
+    }
+
+    @Override
+    protected void compute() {
+      if (pool != null && to - from > 1) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new Deepen(beam, from, middle, currentPiece, followingPiece, deadline),
+            new Deepen(beam, middle, to, currentPiece, followingPiece, deadline));
+        return;
+      }
+      for (int i = from; i < to && System.nanoTime() <= deadline; i++) {
+        deepen(beam.get(i));
+      }
+    }
+
+    /**
+     * Place the other piece on the board of a beam node, and give the node the score of the best board it leads to
+     *
+     * @param node the beam node
+     */
+    private void deepen(Node node) {
+      GamePiece other = MoveList.isSwap(node.move) ? currentPiece : followingPiece;
+      List<Node> children = new ArrayList<>();
+      addChildren(node.board, node.lines, other, 0, new MoveList(), children);
+      if (children.isEmpty()) {
+        //the other piece will time out on this board
+        node.best = Double.NEGATIVE_INFINITY;
+        return;
+      }
+      new Build(children, 0, children.size()).invoke();
+      double best = Double.NEGATIVE_INFINITY;
+      for (Node child : children) {
+        best = Math.max(best, child.value);
+      }
+      node.best = best;
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package uk.ac.soton.comp1206.bot;
+
+import uk.ac.soton.comp1206.core.Board;
+
+/**
+ * Scores a board reached by a search, higher is better. Boards are scored from many threads at once, so an evaluator
+ * must not keep any state between calls.
+ */
+public interface BoardEvaluator {
+
+  /**
+   * score a board
+   *
+   * @param board the board after the pieces were placed and full lines were cleared
+   * @param lines the number of lines cleared on the way to this board
+   * @return the score of the board
+   */
+  double evaluate(Board board, int lines);
+}
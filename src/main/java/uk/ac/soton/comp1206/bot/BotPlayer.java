@@ -0,0 +1,205 @@
+package uk.ac.soton.comp1206.bot;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.core.Board;
+import uk.ac.soton.comp1206.core.GameEngine;
+import uk.ac.soton.comp1206.core.GamePiece;
+import uk.ac.soton.comp1206.core.MoveList;
+import uk.ac.soton.comp1206.event.GameEvent;
+import uk.ac.soton.comp1206.event.GameEventListener;
+import uk.ac.soton.comp1206.game.Game;
+
+/**
+ * Plays a Game through the same calls a person makes, so a bot can sit in a lobby as an opponent or be used to put
+ * load on a server.
+ * <p>
+ * Whenever a new piece is dealt the bot has the game actor take a snapshot of the board and the pieces, and searches
+ * on the pool of its BeamSearch, so the JavaFX thread never waits for it. The move comes back on the JavaFX thread,
+ * where it is played with swapCurrentPiece, rotateCurrentPiece and blockClicked. If what is shown has not caught up
+ * with the state the search started from, the move is tried again on the next pulse, and it is thrown away for a new
+ * search when the next piece is dealt.
+ */
+public class BotPlayer {
+
+  /**
+   * logger for bot player
+   */
+  private static final Logger logger = LogManager.getLogger(BotPlayer.class);
+
+  /**
+   * the game being played
+   */
+  private final Game game;
+
+  /**
+   * finds the moves
+   */
+  private final BeamSearch search;
+
+  /**
+   * starts a search whenever a new piece is dealt
+   */
+  private final GameEventListener nextPiece = (type, a, b) -> think();
+
+  /**
+   * stops the bot when the game ends
+   */
+  private final GameEventListener gameOver = (type, a, b) -> stop();
+
+  /**
+   * plays the move which is waiting for the shown state to catch up, once per pulse
+   */
+  private final AnimationTimer retry = new AnimationTimer() {
+    @Override
+    public void handle(long now) {
+      stop();
+      Runnable move = waiting;
+      waiting = null;
+      if (move != null) {
+        move.run();
+      }
+    }
+  };
+
+  /**
+   * the move waiting for the next pulse, or null
+   */
+  private Runnable waiting;
+
+  /**
+   * counts the searches started, so a move from an older search can be recognised
+   */
+  private int generation;
+
+  /**
+   * true between start and stop
+   */
+  private boolean running;
+
+  /**
+   * Create a bot for a game
+   *
+   * @param game   the game to play
+   * @param search finds the moves
+   */
+  public BotPlayer(Game game, BeamSearch search) {
+    this.game = game;
+    this.search = search;
+  }
+
+  /**
+   * Start playing, called on the JavaFX thread
+   */
+  public void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    game.getEventBus().subscribePulse(GameEvent.NEXT_PIECE, nextPiece);
+    game.getEventBus().subscribePulse(GameEvent.GAME_OVER, gameOver);
+    think();
+  }
+
+  /**
+   * Stop playing, any search still running is ignored when it finishes
+   */
+  public void stop() {
+    running = false;
+    generation++;
+    waiting = null;
+    retry.stop();
+    game.getEventBus().unsubscribe(GameEvent.NEXT_PIECE, nextPiece);
+    game.getEventBus().unsubscribe(GameEvent.GAME_OVER, gameOver);
+  }
+
+  /**
+   * Get the search the bot uses, for its node counts
+   *
+   * @return beam search
+   */
+  public BeamSearch getSearch() {
+    return search;
+  }
+
+  /**
+   * Search for a move. The state is read by the actor, which owns the engine, so it is never older than what is
+   * shown
+   */
+  private void think() {
+    if (!running) {
+      return;
+    }
+    int searchGeneration = ++generation;
+    GameEngine engine = game.getEngine();
+    game.getActor().post(() -> {
+      GamePiece currentPiece = engine.getCurrentPiece();
+      GamePiece followingPiece = engine.getFollowingPiece();
+      if (currentPiece == null || engine.isGameOver()) {
+        return;
+      }
+      Board board = engine.getBoard().copy();
+      long hash = board.getHash();
+
+      search.searchAsync(board, currentPiece, followingPiece).whenComplete((move, error) -> {
+        if (error != null) {
+          logger.error("Search failed", error);
+          return;
+        }
+        Platform.runLater(() -> play(searchGeneration, hash, currentPiece, followingPiece, move));
+      });
+    });
+  }
+
+  /**
+   * Play a move found by a search, on the JavaFX thread
+   *
+   * @param searchGeneration the generation of the search
+   * @param hash             the hash of the board the search started from
+   * @param currentPiece     the current piece the search started from
+   * @param followingPiece   the following piece the search started from
+   * @param move             the packed move, or -1 if nothing fits
+   */
+  private void play(int searchGeneration, long hash, GamePiece currentPiece, GamePiece followingPiece, int move) {
+    if (!running || searchGeneration != generation) {
+      return;
+    }
+    //the clicks are checked against what is shown, so wait until it has caught up with the search
+    if (game.getGrid().getHash() != hash || !samePiece(game.getCurrentPiece(), currentPiece)
+        || !samePiece(game.getFollowingPiece(), followingPiece)) {
+      logger.debug("Shown game is behind the search, trying again next pulse");
+      waiting = () -> play(searchGeneration, hash, currentPiece, followingPiece, move);
+      retry.start();
+      return;
+    }
+    if (move < 0) {
+      //let the piece time out, the next piece starts another search
+      return;
+    }
+
+    if (MoveList.isSwap(move)) {
+      game.swapCurrentPiece();
+    }
+    int rotations = MoveList.unpackRotation(move) - game.getCurrentPiece().getRotation();
+    if (rotations != 0) {
+      game.rotateCurrentPiece(Math.floorMod(rotations, GamePiece.ROTATIONS));
+    }
+    if (!game.blockClicked(MoveList.unpackX(move), MoveList.unpackY(move))) {
+      logger.warn("Move {} was refused, searching again", move);
+      think();
+    }
+  }
+
+  /**
+   * check if two pieces have the same shape and rotation
+   *
+   * @param a first piece, may be null
+   * @param b second piece, may be null
+   * @return true if they match
+   */
+  private static boolean samePiece(GamePiece a, GamePiece b) {
+    return a == null ? b == null : b != null && a.getCode() == b.getCode();
+  }
+}
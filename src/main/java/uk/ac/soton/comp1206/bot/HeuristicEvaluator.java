@@ -0,0 +1,15 @@
+package uk.ac.soton.comp1206.bot;
+
+/**
+ * A hand tuned evaluator. It rewards clearing lines, nearly full lines and free blocks, and penalises empty blocks
+ * which are boxed in on every side and shapes which no longer fit anywhere.
+ */
+public class HeuristicEvaluator extends WeightedEvaluator {
+
+  /**
+   * Create the evaluator with its hand tuned weights
+   */
+  public HeuristicEvaluator() {
+    super(100, 1, 4, -12, -30);
+  }
+}
@@ -0,0 +1,225 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.core.Board;
+import uk.ac.soton.comp1206.core.BoardSnapshot;
+import uk.ac.soton.comp1206.core.GamePiece;
+import uk.ac.soton.comp1206.core.MoveList;
+
+/**
+ * An anytime search for the best place to click with the current piece, used to show a hint.
+ * <p>
+ * The search runs on a background thread and gets better the longer it runs. It first scores every place the piece
+ * fits as it is rotated now, then goes back over them best first and scores each one again by the best place left
+ * for the following piece. The best move so far can be read at any time with getBest, which never waits, so the UI
+ * can show whatever has been found by each pulse.
+ * <p>
+ * Starting a new search, or cancelling, makes the one before stop at its next step.
+ */
+public class HintSearch {
+
+  /**
+   * logger for hint search
+   */
+  private static final Logger logger = LogManager.getLogger(HintSearch.class);
+
+  /**
+   * the thread every hint search runs on
+   */
+  private static final Executor WORKER = Executors.newSingleThreadExecutor(task -> {
+    Thread thread = new Thread(task, "hint-search");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * scores the boards
+   */
+  private final BoardEvaluator evaluator;
+
+  /**
+   * counts the searches started and cancelled, a search stops once this has moved on
+   */
+  private final AtomicInteger generation = new AtomicInteger();
+
+  /**
+   * the best move of the latest search so far
+   */
+  private volatile Result result = new Result(0, -1, true);
+
+  /**
+   * Create a hint search with the heuristic evaluator
+   */
+  public HintSearch() {
+    this(new HeuristicEvaluator());
+  }
+
+  /**
+   * Create a hint search
+   *
+   * @param evaluator scores the boards
+   */
+  public HintSearch(BoardEvaluator evaluator) {
+    this.evaluator = evaluator;
+  }
+
+  /**
+   * Start searching, stopping any search already running
+   *
+   * @param snapshot       the board to play on
+   * @param currentPiece   the current piece, in the rotation it will be placed
+   * @param followingPiece the following piece, or null if it is not known
+   */
+  public void start(BoardSnapshot snapshot, GamePiece currentPiece, GamePiece followingPiece) {
+    int searchGeneration = generation.incrementAndGet();
+    WORKER.execute(() -> run(searchGeneration, snapshot, currentPiece, followingPiece));
+  }
+
+  /**
+   * Stop the search which is running, if any
+   */
+  public void cancel() {
+    generation.incrementAndGet();
+  }
+
+  /**
+   * Get the best move found so far by the latest search
+   *
+   * @return the move packed with MoveList.pack, or -1 if nothing has been found or the search was cancelled
+   */
+  public int getBest() {
+    Result latest = result;
+    return latest.generation == generation.get() ? latest.move : -1;
+  }
+
+  /**
+   * check if the latest search has finished
+   *
+   * @return true if it will not find a better move
+   */
+  public boolean isComplete() {
+    Result latest = result;
+    return latest.generation == generation.get() && latest.complete;
+  }
+
+  /**
+   * Run a search, on the worker thread
+   *
+   * @param searchGeneration the generation of the search
+   * @param snapshot         the board to play on
+   * @param currentPiece     the current piece
+   * @param followingPiece   the following piece, or null
+   */
+  private void run(int searchGeneration, BoardSnapshot snapshot, GamePiece currentPiece,
+      GamePiece followingPiece) {
+    if (searchGeneration != generation.get()) {
+      return;
+    }
+    Board board = new Board(snapshot.getCols(), snapshot.getRows());
+    board.restore(snapshot);
+    int rotation = currentPiece.getRotation();
+
+    //score every place the piece can be clicked as it is
+    List<Board> boards = new ArrayList<>();
+    List<Integer> moves = new ArrayList<>();
+    List<Integer> lines = new ArrayList<>();
+    List<Double> values = new ArrayList<>();
+    double bestValue = Double.NEGATIVE_INFINITY;
+    for (int y = 0; y < board.getRows(); y++) {
+      for (int x = 0; x < board.getCols(); x++) {
+        if (searchGeneration != generation.get()) {
+          return;
+        }
+        if (!board.canPlayPiece(currentPiece, x, y)) {
+          continue;
+        }
+        Board child = board.copy();
+        int cleared = BeamSearch.place(child, currentPiece, x, y);
+        double value = evaluator.evaluate(child, cleared);
+        boards.add(child);
+        moves.add(MoveList.pack(x, y, rotation));
+        lines.add(cleared);
+        values.add(value);
+        if (value > bestValue) {
+          bestValue = value;
+          result = new Result(searchGeneration, MoveList.pack(x, y, rotation), false);
+        }
+      }
+    }
+    if (boards.isEmpty() || followingPiece == null) {
+      result = new Result(searchGeneration, boards.isEmpty() ? -1 : result.move, true);
+      return;
+    }
+
+    //look again at each place, best first, by where the following piece can go afterwards
+    List<Integer> order = new ArrayList<>();
+    for (int i = 0; i < boards.size(); i++) {
+      order.add(i);
+    }
+    order.sort((a, b) -> Double.compare(values.get(b), values.get(a)));
+    MoveList next = new MoveList();
+    double bestDeep = Double.NEGATIVE_INFINITY;
+    for (int i : order) {
+      Board child = boards.get(i);
+      child.legalMoves(followingPiece, next);
+      double deep = Double.NEGATIVE_INFINITY;
+      for (int j = 0; j < next.size(); j++) {
+        if (searchGeneration != generation.get()) {
+          return;
+        }
+        int move = next.get(j);
+        Board grandchild = child.copy();
+        int cleared = BeamSearch.place(grandchild,
+            GamePiece.createPiece(followingPiece.getShape(), MoveList.unpackRotation(move)),
+            MoveList.unpackX(move), MoveList.unpackY(move));
+        deep = Math.max(deep, evaluator.evaluate(grandchild, lines.get(i) + cleared));
+      }
+      if (deep > bestDeep) {
+        bestDeep = deep;
+        result = new Result(searchGeneration, moves.get(i), false);
+      }
+    }
+    result = new Result(searchGeneration, result.move, true);
+    logger.trace("Hint search finished");
+  }
+
+  /**
+   * the best move found by a search so far
+   */
+  private static final class Result {
+
+    /**
+     * the generation of the search which found it
+     */
+    private final int generation;
+
+    /**
+     * the packed move, or -1
+     */
+    private final int move;
+
+    /**
+     * true once the search has finished
+     */
+    private final boolean complete;
+
+    /**
+     * Create a result
+     *
+     * @param generation the generation of the search which found it
+     * @param move       the packed move, or -1
+     * @param complete   true once the search has finished
+     */
+    private Result(int generation, int move, boolean complete) {
+      this.generation = generation;
+      this.move = move;
+      this.complete = complete;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of times in nanoseconds, with one bucket per power of two. Recording is lock-free, so every worker of a
+ * tournament can record into the same histogram.
+ */
+public class LatencyHistogram {
+
+  /**
+   * the number of times in each bucket, bucket b holds times below 2^b nanoseconds and at least 2^(b-1)
+   */
+  private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+
+  /**
+   * Create an empty histogram
+   */
+  public LatencyHistogram() {
+  }
+
+  /**
+   * Record a time
+   *
+   * @param nanos the time in nanoseconds
+   */
+  public void record(long nanos) {
+    buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(Math.max(nanos, 0)));
+  }
+
+  /**
+   * Get the number of times recorded
+   *
+   * @return number of times
+   */
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < buckets.length(); i++) {
+      count += buckets.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * Get the number of times in a bucket
+   *
+   * @param bucket the bucket, times below 2^bucket nanoseconds and at least 2^(bucket-1)
+   * @return number of times
+   */
+  public long getBucket(int bucket) {
+    return buckets.get(bucket);
+  }
+
+  /**
+   * Get an upper bound of a percentile
+   *
+   * @param percentile the percentile, from 0 to 100
+   * @return the top of the bucket the percentile falls in, in nanoseconds, or 0 if nothing has been recorded
+   */
+  public long getPercentile(double percentile) {
+    long count = getCount();
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < buckets.length(); i++) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return i == Long.SIZE - 1 ? Long.MAX_VALUE : 1L << i;
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+}
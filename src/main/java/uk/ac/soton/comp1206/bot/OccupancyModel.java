@@ -0,0 +1,195 @@
+package uk.ac.soton.comp1206.bot;
+
+import uk.ac.soton.comp1206.core.Board;
+import uk.ac.soton.comp1206.core.GamePiece;
+import uk.ac.soton.comp1206.core.MoveList;
+
+/**
+ * The rules of the game reduced to which blocks are filled, for boards small enough that the filled blocks fit in an
+ * int. Bit y * cols + x of an occupancy is set when the block at (x, y) is filled.
+ * <p>
+ * Every legal placement of every shape on an empty board is worked out once as a mask, so placing a piece is an AND
+ * to check it fits, an OR to place it and a few more to clear the full lines.
+ */
+final class OccupancyModel {
+
+  /**
+   * the most blocks a board may have
+   */
+  static final int MAX_CELLS = 25;
+
+  /**
+   * number of columns
+   */
+  private final int cols;
+
+  /**
+   * number of rows
+   */
+  private final int rows;
+
+  /**
+   * mask of each row
+   */
+  private final int[] rowMasks;
+
+  /**
+   * mask of each column
+   */
+  private final int[] colMasks;
+
+  /**
+   * the mask of each placement of each shape
+   */
+  private final int[][] placements;
+
+  /**
+   * the packed move of each placement of each shape
+   */
+  private final int[][] moves;
+
+  /**
+   * Create the model of a board size
+   *
+   * @param cols number of columns
+   * @param rows number of rows
+   */
+  OccupancyModel(int cols, int rows) {
+    if (cols < 1 || rows < 1 || cols * rows > MAX_CELLS) {
+      throw new IllegalArgumentException("Unsupported board size: " + cols + " x " + rows);
+    }
+    this.cols = cols;
+    this.rows = rows;
+
+    rowMasks = new int[rows];
+    colMasks = new int[cols];
+    for (int y = 0; y < rows; y++) {
+      for (int x = 0; x < cols; x++) {
+        rowMasks[y] |= 1 << (y * cols + x);
+        colMasks[x] |= 1 << (y * cols + x);
+      }
+    }
+
+    Board empty = new Board(cols, rows);
+    MoveList legal = new MoveList();
+    placements = new int[GamePiece.PIECES][];
+    moves = new int[GamePiece.PIECES][];
+    for (int shape = 0; shape < GamePiece.PIECES; shape++) {
+      empty.legalMoves(GamePiece.createPiece(shape), legal);
+      placements[shape] = new int[legal.size()];
+      moves[shape] = new int[legal.size()];
+      for (int i = 0; i < legal.size(); i++) {
+        GamePiece piece = GamePiece.createPiece(shape, legal.getRotation(i));
+        placements[shape][i] = mask(piece, legal.getX(i), legal.getY(i));
+        moves[shape][i] = legal.get(i);
+      }
+    }
+  }
+
+  /**
+   * Get the number of occupancies of the board
+   *
+   * @return 2 to the power of the number of blocks
+   */
+  int states() {
+    return 1 << (cols * rows);
+  }
+
+  /**
+   * Get the number of columns
+   *
+   * @return number of columns
+   */
+  int getCols() {
+    return cols;
+  }
+
+  /**
+   * Get the number of rows
+   *
+   * @return number of rows
+   */
+  int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the masks of every placement of a shape on an empty board
+   *
+   * @param shape the shape
+   * @return placement masks, which must not be changed
+   */
+  int[] placements(int shape) {
+    return placements[shape];
+  }
+
+  /**
+   * Get the packed moves of every placement of a shape, in the same order as placements
+   *
+   * @param shape the shape
+   * @return packed moves, which must not be changed
+   */
+  int[] moves(int shape) {
+    return moves[shape];
+  }
+
+  /**
+   * Get the occupancy of a board
+   *
+   * @param board a board of this size
+   * @return the occupancy
+   */
+  int occupancy(Board board) {
+    int occupancy = 0;
+    for (int y = 0; y < rows; y++) {
+      occupancy |= (int) board.getRowMask(y) << (y * cols);
+    }
+    return occupancy;
+  }
+
+  /**
+   * Get the mask of the blocks a piece fills when its centre is placed at the given block
+   *
+   * @param piece the piece, which must fit inside the board
+   * @param x     column of the centre
+   * @param y     row of the centre
+   * @return the mask
+   */
+  private int mask(GamePiece piece, int x, int y) {
+    int mask = 0;
+    for (int j = piece.getMinRow(); j <= piece.getMaxRow(); j++) {
+      for (long bits = piece.getRowMask(j); bits != 0; bits &= bits - 1) {
+        int i = Long.numberOfTrailingZeros(bits);
+        mask |= 1 << ((y - 1 + j) * cols + x - 1 + i);
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Place a piece which fits and clear the lines it fills, scoring as the engine does with a multiplier of 1
+   *
+   * @param occupancy the occupancy before
+   * @param placement the placement mask, which must not overlap the occupancy
+   * @return the score in the high 32 bits and the occupancy after in the low 32 bits
+   */
+  long place(int occupancy, int placement) {
+    int placed = occupancy | placement;
+    int cleared = 0;
+    int lines = 0;
+    for (int y = 0; y < rows; y++) {
+      if ((placed & rowMasks[y]) == rowMasks[y]) {
+        cleared |= rowMasks[y];
+        lines++;
+      }
+    }
+    for (int x = 0; x < cols; x++) {
+      if ((placed & colMasks[x]) == colMasks[x]) {
+        cleared |= colMasks[x];
+        lines++;
+      }
+    }
+    long score = (long) lines * Integer.bitCount(cleared) * 10;
+    return score << 32 | (placed & ~cleared) & 0xFFFFFFFFL;
+  }
+}
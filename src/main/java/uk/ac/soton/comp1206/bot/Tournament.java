@@ -0,0 +1,265 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.core.GameEngine;
+import uk.ac.soton.comp1206.core.GameSimulator;
+import uk.ac.soton.comp1206.core.PieceGenerator;
+import uk.ac.soton.comp1206.core.Player;
+import uk.ac.soton.comp1206.core.SimulationResult;
+
+/**
+ * Plays the same seeded games with several players, headless and in parallel, and reports how each one did.
+ * <p>
+ * Each entry is a name, a way to make its player, how long the player thinks per move and a way to make the engine
+ * for a seed. Game i of every entry uses seed + i, so entries are compared on the same pieces. Games run in virtual
+ * time on a GameSimulator, one game per worker thread, so a fast player plays many thousands of games per second on
+ * each core. Subclasses of GameEngine can be entered to compare scoring rules or level curves. A player with a real
+ * time budget plays differently when the machine is busy, so search bots are entered with BeamSearch.UNLIMITED.
+ */
+public class Tournament {
+
+  /**
+   * logger for tournament
+   */
+  private static final Logger logger = LogManager.getLogger(Tournament.class);
+
+  /**
+   * the longest game, in virtual milliseconds, so a player which never loses still finishes
+   */
+  private static final long TIME_LIMIT = 24 * 60 * 60 * 1000L;
+
+  /**
+   * the number of games each entry plays
+   */
+  private final int games;
+
+  /**
+   * the seed of the first game
+   */
+  private final long seed;
+
+  /**
+   * the number of worker threads
+   */
+  private final int threads;
+
+  /**
+   * the entries
+   */
+  private final List<Entry> entries = new ArrayList<>();
+
+  /**
+   * Create a tournament with a worker per processor
+   *
+   * @param games the number of games each entry plays
+   * @param seed  the seed of the first game
+   */
+  public Tournament(int games, long seed) {
+    this(games, seed, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Create a tournament
+   *
+   * @param games   the number of games each entry plays
+   * @param seed    the seed of the first game
+   * @param threads the number of worker threads
+   */
+  public Tournament(int games, long seed, int threads) {
+    if (games < 1 || threads < 1) {
+      throw new IllegalArgumentException("Need at least one game and one thread: " + games + ", " + threads);
+    }
+    this.games = games;
+    this.seed = seed;
+    this.threads = threads;
+  }
+
+  /**
+   * Enter a player in standard 5x5 games
+   *
+   * @param name      name of the entry
+   * @param player    makes a player for each game
+   * @param thinkTime milliseconds the player takes to make each move
+   * @return this tournament
+   */
+  public Tournament add(String name, Supplier<Player> player, long thinkTime) {
+    return add(name, player, thinkTime, gameSeed -> new GameEngine(5, 5, PieceGenerator.random(gameSeed)));
+  }
+
+  /**
+   * Enter a player in games on engines made for each seed
+   *
+   * @param name      name of the entry
+   * @param player    makes a player for each game
+   * @param thinkTime milliseconds the player takes to make each move
+   * @param engine    makes a new engine for the seed of each game
+   * @return this tournament
+   */
+  public Tournament add(String name, Supplier<Player> player, long thinkTime, LongFunction<GameEngine> engine) {
+    entries.add(new Entry(name, player, thinkTime, engine));
+    return this;
+  }
+
+  /**
+   * Play every game of every entry
+   *
+   * @return a result for each entry, in the order they were added
+   * @throws InterruptedException if interrupted while waiting for the games
+   */
+  public List<TournamentResult> run() throws InterruptedException {
+    AtomicInteger count = new AtomicInteger();
+    ExecutorService workers = Executors.newFixedThreadPool(threads, task -> {
+      Thread thread = new Thread(task, "tournament-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      List<TournamentResult> results = new ArrayList<>();
+      for (Entry entry : entries) {
+        results.add(play(entry, workers));
+      }
+      return results;
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  /**
+   * Play every game of one entry
+   *
+   * @param entry   the entry
+   * @param workers where the games run
+   * @return the result of the entry
+   * @throws InterruptedException if interrupted while waiting for the games
+   */
+  private TournamentResult play(Entry entry, ExecutorService workers) throws InterruptedException {
+    int[] scores = new int[games];
+    LongAdder placements = new LongAdder();
+    LongAdder timeouts = new LongAdder();
+    LatencyHistogram latency = new LatencyHistogram();
+
+    long start = System.nanoTime();
+    List<Future<?>> futures = new ArrayList<>(games);
+    for (int i = 0; i < games; i++) {
+      int game = i;
+      futures.add(workers.submit(() -> {
+        Player player = timed(entry.player.get(), latency);
+        SimulationResult result = new GameSimulator(player, entry.thinkTime).run(entry.engine.apply(seed + game),
+            TIME_LIMIT);
+        scores[game] = result.getScore();
+        placements.add(result.getPlacements());
+        timeouts.add(result.getTimeouts());
+      }));
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Game of " + entry.name + " failed", e.getCause());
+      }
+    }
+    long wallTime = System.nanoTime() - start;
+
+    TournamentResult result = new TournamentResult(entry.name, scores, wallTime, placements.sum(), timeouts.sum(),
+        latency);
+    logger.info("{} played {} games in {}ms", entry.name, games, wallTime / 1_000_000);
+    return result;
+  }
+
+  /**
+   * Wrap a player so the real time of each move is recorded
+   *
+   * @param player  the player
+   * @param latency where the times are recorded
+   * @return the timed player
+   */
+  private static Player timed(Player player, LatencyHistogram latency) {
+    return (engine, moves) -> {
+      long start = System.nanoTime();
+      int move = player.chooseMove(engine, moves);
+      latency.record(System.nanoTime() - start);
+      return move;
+    };
+  }
+
+  /**
+   * Format results as a table
+   *
+   * @param results the results
+   * @return the report
+   */
+  public static String report(List<TournamentResult> results) {
+    StringBuilder report = new StringBuilder(TournamentResult.heading());
+    for (TournamentResult result : results) {
+      report.append(System.lineSeparator()).append(result);
+    }
+    return report.toString();
+  }
+
+  /**
+   * Play every entry with the built in players and print the report
+   *
+   * @param args the number of games and the seed, both optional
+   * @throws InterruptedException if interrupted while waiting for the games
+   */
+  public static void main(String[] args) throws InterruptedException {
+    int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+    Tournament tournament = new Tournament(games, seed)
+        .add("first legal move", Player::firstLegalMove, 500)
+        .add("beam search", () -> new BeamSearch(new HeuristicEvaluator(), 16, BeamSearch.UNLIMITED, null), 500);
+    System.out.println(report(tournament.run()));
+  }
+
+  /**
+   * one player in the tournament
+   */
+  private static class Entry {
+
+    /**
+     * name of the entry
+     */
+    private final String name;
+
+    /**
+     * makes a player for each game
+     */
+    private final Supplier<Player> player;
+
+    /**
+     * milliseconds the player takes to make each move
+     */
+    private final long thinkTime;
+
+    /**
+     * makes a new engine for the seed of each game
+     */
+    private final LongFunction<GameEngine> engine;
+
+    /**
+     * Create an entry
+     *
+     * @param name      name of the entry
+     * @param player    makes a player for each game
+     * @param thinkTime milliseconds the player takes to make each move
+     * @param engine    makes a new engine for the seed of each game
+     */
+    private Entry(String name, Supplier<Player> player, long thinkTime, LongFunction<GameEngine> engine) {
+      this.name = name;
+      this.player = player;
+      this.thinkTime = thinkTime;
+      this.engine = engine;
+    }
+  }
+}
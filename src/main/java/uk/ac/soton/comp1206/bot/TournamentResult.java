@@ -0,0 +1,169 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.Arrays;
+
+/**
+ * The games one entry of a tournament played: how its scores were spread, how fast the games ran and how long each
+ * move took.
+ */
+public final class TournamentResult {
+
+  /**
+   * name of the entry
+   */
+  private final String name;
+
+  /**
+   * the score of every game, lowest first
+   */
+  private final int[] scores;
+
+  /**
+   * real time the games took, in nanoseconds
+   */
+  private final long wallTime;
+
+  /**
+   * pieces placed in every game
+   */
+  private final long placements;
+
+  /**
+   * pieces which timed out in every game
+   */
+  private final long timeouts;
+
+  /**
+   * how long the player took to choose each move
+   */
+  private final LatencyHistogram latency;
+
+  /**
+   * Create a result
+   *
+   * @param name       name of the entry
+   * @param scores     the score of every game, which is sorted
+   * @param wallTime   real time the games took, in nanoseconds
+   * @param placements pieces placed in every game
+   * @param timeouts   pieces which timed out in every game
+   * @param latency    how long the player took to choose each move
+   */
+  public TournamentResult(String name, int[] scores, long wallTime, long placements, long timeouts,
+      LatencyHistogram latency) {
+    this.name = name;
+    this.scores = scores;
+    this.wallTime = wallTime;
+    this.placements = placements;
+    this.timeouts = timeouts;
+    this.latency = latency;
+    Arrays.sort(scores);
+  }
+
+  /**
+   * Get the name of the entry
+   *
+   * @return name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Get the number of games played
+   *
+   * @return games
+   */
+  public int getGames() {
+    return scores.length;
+  }
+
+  /**
+   * Get the mean score
+   *
+   * @return mean score, or 0 if no games were played
+   */
+  public double getMeanScore() {
+    long total = 0;
+    for (int score : scores) {
+      total += score;
+    }
+    return scores.length == 0 ? 0 : (double) total / scores.length;
+  }
+
+  /**
+   * Get a percentile of the scores
+   *
+   * @param percentile the percentile, from 0 to 100
+   * @return the score, or 0 if no games were played
+   */
+  public int getScorePercentile(double percentile) {
+    if (scores.length == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(scores.length * percentile / 100);
+    return scores[Math.min(Math.max(rank - 1, 0), scores.length - 1)];
+  }
+
+  /**
+   * Get the real time the games took
+   *
+   * @return time in nanoseconds
+   */
+  public long getWallTime() {
+    return wallTime;
+  }
+
+  /**
+   * Get how many games were played per second of real time
+   *
+   * @return games per second
+   */
+  public double getGamesPerSecond() {
+    return wallTime == 0 ? 0 : scores.length * 1e9 / wallTime;
+  }
+
+  /**
+   * Get the pieces placed in every game
+   *
+   * @return placements
+   */
+  public long getPlacements() {
+    return placements;
+  }
+
+  /**
+   * Get the pieces which timed out in every game
+   *
+   * @return timeouts
+   */
+  public long getTimeouts() {
+    return timeouts;
+  }
+
+  /**
+   * Get how long the player took to choose each move
+   *
+   * @return latency histogram
+   */
+  public LatencyHistogram getLatency() {
+    return latency;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%-20s %8d %10.1f %8d %8d %8d %8d %10.0f %10.1f %10.1f", name, scores.length,
+        getMeanScore(), getScorePercentile(0), getScorePercentile(50), getScorePercentile(90),
+        getScorePercentile(100), getGamesPerSecond(), latency.getPercentile(50) / 1000.0,
+        latency.getPercentile(99) / 1000.0);
+  }
+
+  /**
+   * Get the heading of the columns of toString
+   *
+   * @return heading
+   */
+  public static String heading() {
+    return String.format("%-20s %8s %10s %8s %8s %8s %8s %10s %10s %10s", "entry", "games", "mean", "min", "p50",
+        "p90", "max", "games/s", "move p50us", "move p99us");
+  }
+}
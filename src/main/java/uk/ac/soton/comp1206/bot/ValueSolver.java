@@ -0,0 +1,243 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.core.GamePiece;
+
+/**
+ * Works out the value of every occupancy of a small board by value iteration, and writes it to a file a ValueTable
+ * can map.
+ * <p>
+ * The value of an occupancy is the discounted score a perfect player expects from it when the next piece is dealt at
+ * random. For each shape the player takes the placement with the best score plus discounted value of the board it
+ * leaves, and a shape which does not fit costs a life and leaves the board as it was. The pieces themselves are
+ * averaged out, so the table has one value per occupancy, 2^25 for the 5x5 board, and the value of a particular pair
+ * of pieces is worked out from it when a move is chosen.
+ * <p>
+ * Each sweep works out every occupancy from the values of the last sweep into a second array, split across a
+ * fork-join pool, and the arrays are swapped after it. No task reads a value another task is writing, so the table
+ * depends only on the board, discount and penalty, not on how the tasks were scheduled. Sweeps repeat until no value
+ * moves by more than the tolerance.
+ * <p>
+ * Run from the command line with the columns, rows and file to write, for example {@code 5 5 values.bin}.
+ */
+public class ValueSolver {
+
+  /**
+   * logger for value solver
+   */
+  private static final Logger logger = LogManager.getLogger(ValueSolver.class);
+
+  /**
+   * the most occupancies updated by one task before it is split in two
+   */
+  private static final int GRAIN = 1 << 12;
+
+  /**
+   * the rules of the board
+   */
+  private final OccupancyModel model;
+
+  /**
+   * how much a score one piece later is worth
+   */
+  private final float discount;
+
+  /**
+   * the cost of a piece which does not fit
+   */
+  private final float lifePenalty;
+
+  /**
+   * where the sweeps run
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * the value of every occupancy after the last sweep
+   */
+  private float[] values;
+
+  /**
+   * where the next sweep writes its values
+   */
+  private float[] next;
+
+  /**
+   * Create a solver on the common pool, with a discount of 0.95 and a penalty of 500 for a lost life
+   *
+   * @param cols number of columns
+   * @param rows number of rows
+   */
+  public ValueSolver(int cols, int rows) {
+    this(cols, rows, 0.95f, 500, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Create a solver
+   *
+   * @param cols        number of columns
+   * @param rows        number of rows
+   * @param discount    how much a score one piece later is worth, below 1
+   * @param lifePenalty the cost of a piece which does not fit
+   * @param pool        where the sweeps run
+   */
+  public ValueSolver(int cols, int rows, float discount, float lifePenalty, ForkJoinPool pool) {
+    if (discount <= 0 || discount >= 1) {
+      throw new IllegalArgumentException("Discount must be between 0 and 1: " + discount);
+    }
+    this.model = new OccupancyModel(cols, rows);
+    this.discount = discount;
+    this.lifePenalty = lifePenalty;
+    this.pool = pool;
+    this.values = new float[model.states()];
+    this.next = new float[model.states()];
+  }
+
+  /**
+   * Sweep until the values settle
+   *
+   * @param tolerance the largest change in a sweep which counts as settled
+   * @param maxSweeps the most sweeps to run
+   * @return the number of sweeps run
+   */
+  public int solve(float tolerance, int maxSweeps) {
+    for (int sweep = 1; sweep <= maxSweeps; sweep++) {
+      long start = System.nanoTime();
+      float change = pool.invoke(new Sweep(0, values.length));
+      float[] swap = values;
+      values = next;
+      next = swap;
+      logger.info("Sweep {} changed values by up to {} in {}ms", sweep, change,
+          (System.nanoTime() - start) / 1_000_000);
+      if (change <= tolerance) {
+        return sweep;
+      }
+    }
+    return maxSweeps;
+  }
+
+  /**
+   * Get the value of an occupancy
+   *
+   * @param occupancy the occupancy
+   * @return its value
+   */
+  public float getValue(int occupancy) {
+    return values[occupancy];
+  }
+
+  /**
+   * Write the values to a file for ValueTable.open
+   *
+   * @param path the file to write
+   * @throws IOException if the file cannot be written
+   */
+  public void write(Path path) throws IOException {
+    long size = ValueTable.HEADER + (long) values.length * Float.BYTES;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      buffer.putInt(ValueTable.MAGIC);
+      buffer.putInt(model.getCols());
+      buffer.putInt(model.getRows());
+      buffer.putFloat(discount);
+      buffer.putFloat(lifePenalty);
+      buffer.asFloatBuffer().put(values);
+      buffer.force();
+    }
+    logger.info("Wrote {} values to {}", values.length, path);
+  }
+
+  /**
+   * Work out the new value of an occupancy from the last sweep's values of the occupancies it leads to
+   *
+   * @param occupancy the occupancy
+   * @return its new value
+   */
+  private float update(int occupancy) {
+    float total = 0;
+    for (int shape = 0; shape < GamePiece.PIECES; shape++) {
+      float best = Float.NEGATIVE_INFINITY;
+      for (int placement : model.placements(shape)) {
+        if ((occupancy & placement) != 0) {
+          continue;
+        }
+        long result = model.place(occupancy, placement);
+        best = Math.max(best, (result >>> 32) + discount * values[(int) result]);
+      }
+      total += best == Float.NEGATIVE_INFINITY ? discount * values[occupancy] - lifePenalty : best;
+    }
+    return total / GamePiece.PIECES;
+  }
+
+  /**
+   * Solve a board size and write the table
+   *
+   * @param args columns, rows and the file to write
+   * @throws IOException if the file cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 3) {
+      System.err.println("Usage: ValueSolver <cols> <rows> <file>");
+      return;
+    }
+    ValueSolver solver = new ValueSolver(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+    solver.solve(0.01f, 1000);
+    solver.write(Path.of(args[2]));
+  }
+
+  /**
+   * updates a range of occupancies, splitting it between tasks when it is large
+   */
+  @SuppressWarnings("serial")
+  private class Sweep extends RecursiveTask<Float> {
+
+    /**
+     * first occupancy of the range
+     */
+    private final int from;
+
+    /**
+     * end of the range, exclusive
+     */
+    private final int to;
+
+    /**
+     * Create a task for a range of occupancies
+     *
+     * @param from first occupancy of the range
+     * @param to   end of the range, exclusive
+     */
+    private Sweep(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Float compute() {
+      if (to - from > GRAIN) {
+        int middle = (from + to) >>> 1;
+        Sweep left = new Sweep(from, middle);
+        left.fork();
+        float right = new Sweep(middle, to).compute();
+        return Math.max(left.join(), right);
+      }
+      //only the last sweep's values are read, so the order the tasks run in makes no difference
+      float change = 0;
+      for (int occupancy = from; occupancy < to; occupancy++) {
+        float value = update(occupancy);
+        change = Math.max(change, Math.abs(value - values[occupancy]));
+        next[occupancy] = value;
+      }
+      return change;
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import uk.ac.soton.comp1206.core.Board;
+import uk.ac.soton.comp1206.core.GameEngine;
+import uk.ac.soton.comp1206.core.GamePiece;
+import uk.ac.soton.comp1206.core.MoveList;
+import uk.ac.soton.comp1206.core.Player;
+
+/**
+ * A table written by ValueSolver, memory mapped so it is shared with the page cache rather than loaded. Looking up
+ * the value of an occupancy is one read.
+ * <p>
+ * As a Player it makes the best move the table knows. The table averages over the pieces, but the player knows both of
+ * its pieces, so each placement of either piece is followed by the best placement of the other before the table is
+ * read. A move is worth both scores plus the discounted value of the board they leave, and the best one is played.
+ * <p>
+ * The file starts with a 20 byte header of a magic number, the columns, the rows, the discount and the life penalty,
+ * followed by one float per occupancy.
+ */
+public class ValueTable implements Player {
+
+  /**
+   * the magic number at the start of every table
+   */
+  static final int MAGIC = 0x54564C31;
+
+  /**
+   * the size of the header, in bytes
+   */
+  static final int HEADER = 20;
+
+  /**
+   * the rules of the board
+   */
+  private final OccupancyModel model;
+
+  /**
+   * how much a score one piece later is worth
+   */
+  private final float discount;
+
+  /**
+   * the cost of a piece which does not fit
+   */
+  private final float lifePenalty;
+
+  /**
+   * the mapped values
+   */
+  private final FloatBuffer values;
+
+  /**
+   * Create a table over mapped values
+   *
+   * @param model       the rules of the board
+   * @param discount    how much a score one piece later is worth
+   * @param lifePenalty the cost of a piece which does not fit
+   * @param values      the mapped values
+   */
+  private ValueTable(OccupancyModel model, float discount, float lifePenalty, FloatBuffer values) {
+    this.model = model;
+    this.discount = discount;
+    this.lifePenalty = lifePenalty;
+    this.values = values;
+  }
+
+  /**
+   * Map a table written by ValueSolver
+   *
+   * @param path the file
+   * @return the table
+   * @throws IOException if the file cannot be read or is not a table
+   */
+  public static ValueTable open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.limit() < HEADER || buffer.getInt(0) != MAGIC) {
+        throw new IOException("Not a value table: " + path);
+      }
+      OccupancyModel model = new OccupancyModel(buffer.getInt(4), buffer.getInt(8));
+      if (buffer.limit() != HEADER + (long) model.states() * Float.BYTES) {
+        throw new IOException("Value table is truncated: " + path);
+      }
+      return new ValueTable(model, buffer.getFloat(12), buffer.getFloat(16),
+          buffer.position(HEADER).slice().asFloatBuffer());
+    }
+  }
+
+  /**
+   * Get the number of columns of the board the table is for
+   *
+   * @return number of columns
+   */
+  public int getCols() {
+    return model.getCols();
+  }
+
+  /**
+   * Get the number of rows of the board the table is for
+   *
+   * @return number of rows
+   */
+  public int getRows() {
+    return model.getRows();
+  }
+
+  /**
+   * Get the value of a board
+   *
+   * @param board a board of the size of the table
+   * @return the discounted score a perfect player expects from it
+   */
+  public float getValue(Board board) {
+    return values.get(model.occupancy(board));
+  }
+
+  @Override
+  public int chooseMove(GameEngine engine, MoveList moves) {
+    return bestMove(engine.getBoard(), engine.getCurrentPiece(), engine.getFollowingPiece());
+  }
+
+  /**
+   * Find the best move for the current piece
+   *
+   * @param board          a board of the size of the table
+   * @param currentPiece   the current piece
+   * @param followingPiece the following piece, or null if swapping is not allowed
+   * @return a move packed with MoveList.pack, with MoveList.SWAP set when the pieces should be swapped first, or -1
+   *     if neither piece fits
+   */
+  public int bestMove(Board board, GamePiece currentPiece, GamePiece followingPiece) {
+    int occupancy = model.occupancy(board);
+    int bestMove = -1;
+    float best = Float.NEGATIVE_INFINITY;
+    for (int swap = 0; swap < 2; swap++) {
+      GamePiece piece = swap == 0 ? currentPiece : followingPiece;
+      GamePiece other = swap == 0 ? followingPiece : currentPiece;
+      if (piece == null) {
+        continue;
+      }
+      int[] placements = model.placements(piece.getShape());
+      for (int i = 0; i < placements.length; i++) {
+        if ((occupancy & placements[i]) != 0) {
+          continue;
+        }
+        long result = model.place(occupancy, placements[i]);
+        int after = (int) result;
+        float later = other == null ? values.get(after) : value(after, other.getShape());
+        float value = (result >>> 32) + discount * later;
+        if (value > best) {
+          best = value;
+          bestMove = model.moves(piece.getShape())[i] | (swap == 0 ? 0 : MoveList.SWAP);
+        }
+      }
+    }
+    return bestMove;
+  }
+
+  /**
+   * Get the value of an occupancy when the next piece to place is known
+   *
+   * @param occupancy the occupancy
+   * @param shape     the shape of the next piece
+   * @return the best score plus discounted value of a placement, or the life penalty if the piece does not fit
+   */
+  private float value(int occupancy, int shape) {
+    float best = Float.NEGATIVE_INFINITY;
+    for (int placement : model.placements(shape)) {
+      if ((occupancy & placement) != 0) {
+        continue;
+      }
+      long result = model.place(occupancy, placement);
+      best = Math.max(best, (result >>> 32) + discount * values.get((int) result));
+    }
+    return best == Float.NEGATIVE_INFINITY ? discount * values.get(occupancy) - lifePenalty : best;
+  }
+}
@@ -0,0 +1,354 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.core.GameEngine;
+import uk.ac.soton.comp1206.core.GameSimulator;
+import uk.ac.soton.comp1206.core.PieceGenerator;
+
+/**
+ * Evolves the weights of a WeightedEvaluator with a genetic algorithm.
+ * <p>
+ * The fitness of a set of weights is the mean score of a beam search bot using them over a number of seeded games.
+ * The bot has no time budget, so the score of a seed does not depend on how busy the cores are.
+ * Every set in a generation plays the same seeds, and each game is a separate task on a pool of worker threads, so
+ * a generation uses every core. Games are simulated on a GameEngine in virtual time, so no JavaFX toolkit or real
+ * timer is needed.
+ * <p>
+ * After the games, the best quarter of the population is kept and the rest is replaced by children. Each child
+ * takes each weight from one of two parents picked from the better half, then has Gaussian noise added. The
+ * population is written to the checkpoint file after every generation, and a tuner started with the same file
+ * carries on from there. The random choices of each generation come from the seed and the generation number, so a
+ * run carried on from a checkpoint breeds the same children as one which was never stopped.
+ */
+public class WeightTuner {
+
+  /**
+   * logger for weight tuner
+   */
+  private static final Logger logger = LogManager.getLogger(WeightTuner.class);
+
+  /**
+   * the longest game, in virtual milliseconds
+   */
+  private static final long TIME_LIMIT = 60 * 60 * 1000L;
+
+  /**
+   * how long the bot thinks per move, in virtual milliseconds
+   */
+  private static final long THINK_TIME = 500;
+
+  /**
+   * the size of the population
+   */
+  private final int size;
+
+  /**
+   * the number of games played by each set of weights in each generation
+   */
+  private final int games;
+
+  /**
+   * picks parents, crossovers and mutations, reseeded for each generation
+   */
+  private Random random;
+
+  /**
+   * the seed of the first game
+   */
+  private final long seed;
+
+  /**
+   * the number of worker threads
+   */
+  private final int threads;
+
+  /**
+   * the weights of each member of the population
+   */
+  private final List<double[]> population = new ArrayList<>();
+
+  /**
+   * the fitness of each member of the population, NaN until it has played
+   */
+  private double[] fitness;
+
+  /**
+   * the number of generations played
+   */
+  private int generation;
+
+  /**
+   * where the population is saved after each generation, or null
+   */
+  private Path checkpoint;
+
+  /**
+   * Create a tuner with a worker per processor, starting from the hand tuned weights
+   *
+   * @param size  the size of the population
+   * @param games the number of games played by each set of weights in each generation
+   * @param seed  the seed of the games and of the random choices
+   */
+  public WeightTuner(int size, int games, long seed) {
+    this(size, games, seed, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Create a tuner starting from the hand tuned weights
+   *
+   * @param size    the size of the population
+   * @param games   the number of games played by each set of weights in each generation
+   * @param seed    the seed of the games and of the random choices
+   * @param threads the number of worker threads
+   */
+  public WeightTuner(int size, int games, long seed, int threads) {
+    if (size < 4 || games < 1 || threads < 1) {
+      throw new IllegalArgumentException("Need at least 4 members, 1 game and 1 thread");
+    }
+    this.size = size;
+    this.games = games;
+    this.seed = seed;
+    this.threads = threads;
+    this.random = new Random(seed);
+
+    double[] start = new HeuristicEvaluator().getWeights();
+    population.add(start);
+    while (population.size() < size) {
+      population.add(mutate(start));
+    }
+    fitness = new double[size];
+    Arrays.fill(fitness, Double.NaN);
+  }
+
+  /**
+   * Save the population to a file after every generation, carrying on from the file if it already has one
+   *
+   * @param checkpoint the file
+   * @throws IOException if the file exists but cannot be read
+   */
+  public void setCheckpoint(Path checkpoint) throws IOException {
+    this.checkpoint = checkpoint;
+    if (Files.exists(checkpoint)) {
+      load(checkpoint);
+    }
+  }
+
+  /**
+   * Get the number of generations played
+   *
+   * @return generations
+   */
+  public int getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Get the best weights of the latest generation
+   *
+   * @return the weights, which are the starting weights if no generation has been played
+   */
+  public double[] getBest() {
+    return population.get(0).clone();
+  }
+
+  /**
+   * Play generations
+   *
+   * @param generations the number of generations to play
+   * @return the best weights found
+   * @throws IOException          if the checkpoint cannot be written
+   * @throws InterruptedException if interrupted while waiting for the games
+   */
+  public double[] tune(int generations) throws IOException, InterruptedException {
+    AtomicInteger count = new AtomicInteger();
+    ExecutorService workers = Executors.newFixedThreadPool(threads, task -> {
+      Thread thread = new Thread(task, "tuner-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      for (int i = 0; i < generations; i++) {
+        evaluate(workers);
+        select();
+        generation++;
+        logger.info("Generation {}: best {} with weights {}", generation, fitness[0],
+            Arrays.toString(population.get(0)));
+        if (checkpoint != null) {
+          save(checkpoint);
+        }
+        breed();
+      }
+    } finally {
+      workers.shutdownNow();
+    }
+    return getBest();
+  }
+
+  /**
+   * Play the games of every member of the population
+   *
+   * @param workers where the games run
+   * @throws InterruptedException if interrupted while waiting for the games
+   */
+  private void evaluate(ExecutorService workers) throws InterruptedException {
+    //every member plays the same seeds, which change every generation
+    long firstSeed = seed + (long) generation * games;
+    int[][] scores = new int[size][games];
+    List<Future<?>> futures = new ArrayList<>();
+    for (int member = 0; member < size; member++) {
+      WeightedEvaluator evaluator = new WeightedEvaluator(population.get(member));
+      for (int game = 0; game < games; game++) {
+        int[] memberScores = scores[member];
+        int index = game;
+        futures.add(workers.submit(() -> {
+          BeamSearch bot = new BeamSearch(evaluator, 4, BeamSearch.UNLIMITED, null);
+          GameEngine engine = new GameEngine(5, 5, PieceGenerator.random(firstSeed + index));
+          memberScores[index] = new GameSimulator(bot, THINK_TIME).run(engine, TIME_LIMIT).getScore();
+        }));
+      }
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Tuning game failed", e.getCause());
+      }
+    }
+    for (int member = 0; member < size; member++) {
+      fitness[member] = Arrays.stream(scores[member]).average().orElse(0);
+    }
+  }
+
+  /**
+   * Sort the population, fittest first
+   */
+  private void select() {
+    Integer[] order = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(fitness[b], fitness[a]));
+    List<double[]> sorted = new ArrayList<>();
+    double[] sortedFitness = new double[size];
+    for (int i = 0; i < size; i++) {
+      sorted.add(population.get(order[i]));
+      sortedFitness[i] = fitness[order[i]];
+    }
+    population.clear();
+    population.addAll(sorted);
+    fitness = sortedFitness;
+  }
+
+  /**
+   * Replace all but the best quarter of a sorted population with children of the better half
+   */
+  private void breed() {
+    random = new Random(31 * seed + generation);
+    int elite = Math.max(1, size / 4);
+    int parents = Math.max(2, size / 2);
+    for (int i = elite; i < size; i++) {
+      double[] mother = population.get(random.nextInt(parents));
+      double[] father = population.get(random.nextInt(parents));
+      double[] child = new double[mother.length];
+      for (int w = 0; w < child.length; w++) {
+        child[w] = random.nextBoolean() ? mother[w] : father[w];
+      }
+      population.set(i, mutate(child));
+      fitness[i] = Double.NaN;
+    }
+  }
+
+  /**
+   * Add Gaussian noise to weights, scaled to the size of each weight
+   *
+   * @param weights the weights
+   * @return new mutated weights
+   */
+  private double[] mutate(double[] weights) {
+    double[] mutated = weights.clone();
+    for (int w = 0; w < mutated.length; w++) {
+      mutated[w] += random.nextGaussian() * (0.2 * Math.abs(mutated[w]) + 1);
+    }
+    return mutated;
+  }
+
+  /**
+   * Write the population to a file, replacing it in one step so a crash never leaves half a checkpoint
+   *
+   * @param path the file
+   * @throws IOException if the file cannot be written
+   */
+  private void save(Path path) throws IOException {
+    List<String> lines = new ArrayList<>();
+    lines.add("generation " + generation);
+    for (int i = 0; i < size; i++) {
+      StringBuilder line = new StringBuilder(Double.toString(fitness[i]));
+      for (double weight : population.get(i)) {
+        line.append(' ').append(weight);
+      }
+      lines.add(line.toString());
+    }
+    Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    Files.write(temp, lines);
+    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Read the population from a file written by save. Members missing from the file are kept as they are.
+   *
+   * @param path the file
+   * @throws IOException if the file cannot be read or is not a checkpoint
+   */
+  private void load(Path path) throws IOException {
+    List<String> lines = Files.readAllLines(path);
+    try {
+      generation = Integer.parseInt(lines.get(0).substring("generation ".length()));
+      for (int i = 0; i < size && i + 1 < lines.size(); i++) {
+        String[] values = lines.get(i + 1).trim().split(" ");
+        double[] weights = new double[WeightedEvaluator.FEATURES];
+        for (int w = 0; w < weights.length; w++) {
+          weights[w] = Double.parseDouble(values[w + 1]);
+        }
+        population.set(i, weights);
+        fitness[i] = Double.parseDouble(values[0]);
+      }
+    } catch (RuntimeException e) {
+      throw new IOException("Not a tuner checkpoint: " + path, e);
+    }
+    logger.info("Carrying on from generation {} in {}", generation, path);
+    breed();
+  }
+
+  /**
+   * Tune the weights and print the best
+   *
+   * @param args the number of generations, and the checkpoint file, which is optional
+   * @throws IOException          if the checkpoint cannot be read or written
+   * @throws InterruptedException if interrupted while waiting for the games
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length < 1) {
+      System.err.println("Usage: WeightTuner <generations> [checkpoint]");
+      return;
+    }
+    WeightTuner tuner = new WeightTuner(16, 8, 0);
+    if (args.length > 1) {
+      tuner.setCheckpoint(Path.of(args[1]));
+    }
+    System.out.println(Arrays.toString(tuner.tune(Integer.parseInt(args[0]))));
+  }
+}
@@ -0,0 +1,128 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.Arrays;
+import uk.ac.soton.comp1206.core.Board;
+import uk.ac.soton.comp1206.core.GamePiece;
+
+/**
+ * An evaluator which adds up features of the board, each multiplied by its weight. The board of a Grid can be scored
+ * with Grid.getBoard.
+ * <p>
+ * Every feature is worked out from the occupancy bitboards of the board, so scoring a board costs a few dozen mask
+ * operations plus a legal move check per shape. The weights are what WeightTuner evolves.
+ */
+public class WeightedEvaluator implements BoardEvaluator {
+
+  /**
+   * feature: the number of lines cleared
+   */
+  public static final int LINES = 0;
+
+  /**
+   * feature: the sum of the square of the filled blocks in each row and column, which is high for nearly full lines
+   */
+  public static final int NEARLY_FULL = 1;
+
+  /**
+   * feature: the number of empty blocks
+   */
+  public static final int FREE = 2;
+
+  /**
+   * feature: the number of empty blocks with the board edge or a filled block on every side
+   */
+  public static final int HOLES = 3;
+
+  /**
+   * feature: the number of shapes which cannot be placed anywhere
+   */
+  public static final int STUCK = 4;
+
+  /**
+   * the number of features
+   */
+  public static final int FEATURES = 5;
+
+  /**
+   * one piece of each shape, in its first rotation
+   */
+  private static final GamePiece[] SHAPES = new GamePiece[GamePiece.PIECES];
+
+  static {
+    for (int shape = 0; shape < GamePiece.PIECES; shape++) {
+      SHAPES[shape] = GamePiece.createPiece(shape);
+    }
+  }
+
+  /**
+   * the weight of each feature
+   */
+  private final double[] weights;
+
+  /**
+   * Create an evaluator
+   *
+   * @param weights the weight of each feature, indexed by the feature constants
+   */
+  public WeightedEvaluator(double... weights) {
+    if (weights.length != FEATURES) {
+      throw new IllegalArgumentException("Expected " + FEATURES + " weights, got " + weights.length);
+    }
+    this.weights = weights.clone();
+  }
+
+  /**
+   * Get the weights
+   *
+   * @return a copy of the weight of each feature
+   */
+  public double[] getWeights() {
+    return weights.clone();
+  }
+
+  @Override
+  public double evaluate(Board board, int lines) {
+    int cols = board.getCols();
+    int rows = board.getRows();
+    long full = cols == Long.SIZE ? -1L : (1L << cols) - 1;
+    long lastCol = 1L << (cols - 1);
+
+    int filled = 0;
+    int squares = 0;
+    int holes = 0;
+    for (int y = 0; y < rows; y++) {
+      long row = board.getRowMask(y);
+      int count = board.getRowCount(y);
+      filled += count;
+      squares += count * count;
+
+      //an empty block is boxed in when the board edge or a filled block is on each side
+      long left = row << 1 | 1;
+      long right = row >>> 1 | lastCol;
+      long up = y == 0 ? full : board.getRowMask(y - 1);
+      long down = y == rows - 1 ? full : board.getRowMask(y + 1);
+      holes += Long.bitCount(~row & full & left & right & up & down);
+    }
+    for (int x = 0; x < cols; x++) {
+      int count = board.getColCount(x);
+      squares += count * count;
+    }
+
+    int stuck = 0;
+    if (weights[STUCK] != 0) {
+      for (GamePiece shape : SHAPES) {
+        if (!board.hasLegalMove(shape)) {
+          stuck++;
+        }
+      }
+    }
+
+    return weights[LINES] * lines + weights[NEARLY_FULL] * squares + weights[FREE] * (cols * rows - filled)
+        + weights[HOLES] * holes + weights[STUCK] * stuck;
+  }
+
+  @Override
+  public String toString() {
+    return "WeightedEvaluator" + Arrays.toString(weights);
+  }
+}
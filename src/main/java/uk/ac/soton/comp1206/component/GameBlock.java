@@ -15,7 +15,7 @@ import javafx.scene.paint.*;
  * <p>
  * Displays an empty square (when the value is 0) or a coloured square depending on value.
  * <p>
- * The GameBlock value should be bound to a corresponding block in the Grid model.
+ * The GameBlock value is set by its GameBoard whenever the corresponding block in the Grid model changes.
  */
 public class GameBlock extends Canvas {
   /**
@@ -88,6 +88,11 @@ public class GameBlock extends Canvas {
    * The value of this block (0 = empty, otherwise specifies the colour to render as)
    */
   private final IntegerProperty value = new SimpleIntegerProperty(0);
+
+  /**
+   * the value of the hint piece drawn faintly over this block, or 0 for none
+   */
+  private int ghost;
   //The listener is set to the value, so whenever the value changes, it will recolor
 
   /**
@@ -162,6 +167,12 @@ public class GameBlock extends Canvas {
       //If the block is not empty, paint with the colour represented by the value
       paintColor(COLOURS[value.get()]);
     }
+    if (ghost != 0 && value.get() == 0) {
+      //a hint piece shows through an empty block
+      var gc = getGraphicsContext2D();
+      gc.setFill(COLOURS[ghost].deriveColor(0, 1, 1, 0.35));
+      gc.fillRoundRect(0, 0, width, height, 10, 10);
+    }
     if (ifCenter) {
       //paints centre dot
       var gc = getGraphicsContext2D();
@@ -239,6 +250,15 @@ public class GameBlock extends Canvas {
     return this.value.get();
   }
 
+  /**
+   * Set the value of this block, it repaints if the value changed
+   *
+   * @param value the new value
+   */
+  public void setValue(int value) {
+    this.value.set(value);
+  }
+
   /**
    * Bind the value of this block to another property. Used to link the visual block to a corresponding block in the Grid.
    *
@@ -248,6 +268,18 @@ public class GameBlock extends Canvas {
     value.bind(input);
   }
 
+  /**
+   * Show a hint piece faintly over this block while it is empty
+   *
+   * @param ghost the value of the hint piece, or 0 to hide it
+   */
+  public void setGhost(int ghost) {
+    if (this.ghost != ghost) {
+      this.ghost = ghost;
+      paint();
+    }
+  }
+
   /**
    * set the ifCenter to true to show that current block is at the center of the board
    */
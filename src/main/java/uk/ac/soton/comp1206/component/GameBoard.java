@@ -7,12 +7,12 @@ import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.core.CoordinateSet;
+import uk.ac.soton.comp1206.core.GamePiece;
 import uk.ac.soton.comp1206.event.BlockClickedListener;
 import uk.ac.soton.comp1206.event.RightClickedListener;
 import uk.ac.soton.comp1206.game.Grid;
 
-import java.util.Set;
-
 /**
  * A GameBoard is a visual component to represent the visual GameBoard.
  * It extends a GridPane to hold a grid of GameBlocks.
@@ -60,6 +60,11 @@ public class GameBoard extends GridPane {
    */
   GameBlock[][] blocks;
 
+  /**
+   * the blocks the hint piece is drawn over
+   */
+  private CoordinateSet ghost;
+
   /**
    * The listener to call when a specific block is clicked
    */
@@ -161,12 +166,25 @@ public class GameBoard extends GridPane {
     setGridLinesVisible(true);
 
     blocks = new GameBlock[cols][rows];
+    ghost = new CoordinateSet(cols, rows);
 
     for (var y = 0; y < rows; y++) {
       for (var x = 0; x < cols; x++) {
         createBlock(x, y);
       }
     }
+
+    //repaint the changed blocks once at the end of every change to the grid
+    grid.addChangeListener(this::gridChanged);
+  }
+
+  /**
+   * Update the blocks written by a change to the grid, each block repaints if its value changed
+   *
+   * @param dirty the blocks written
+   */
+  private void gridChanged(CoordinateSet dirty) {
+    dirty.forEach((x, y) -> blocks[x][y].setValue(grid.get(x, y)));
   }
 
   /**
@@ -189,10 +207,8 @@ public class GameBoard extends GridPane {
     //Add to our block directory
     blocks[x][y] = block;
 
-    //Link the GameBlock component to the corresponding value in the Grid
-    block.bind(grid.getGridProperty(x, y));
-    //将block与grid绑定在一起，这也是为什么block能变色，是因为在grid类中我们用了playPiece方法，改变了grid的值，
-    //进而改变了block的value，而value有监听器，会给block重新上色
+    //Show the corresponding value in the Grid, gridChanged keeps it up to date
+    block.setValue(grid.get(x, y));
 
     //Add a mouse click handler to the block to trigger GameBoard blockClicked method
     block.setOnMouseClicked((e) -> {
@@ -281,16 +297,44 @@ public class GameBoard extends GridPane {
     }
   }
 
+  /**
+   * Draw a hint piece faintly where it would go if the given block was clicked, replacing any hint already shown
+   *
+   * @param piece the piece
+   * @param x     column of the centre of the piece
+   * @param y     row of the centre of the piece
+   */
+  public void showGhost(GamePiece piece, int x, int y) {
+    clearGhost();
+    int[][] pieceBlocks = piece.getBlocks();
+    for (int i = 0; i < pieceBlocks.length; i++) {
+      for (int j = 0; j < pieceBlocks[i].length; j++) {
+        int blockX = x - 1 + i;
+        int blockY = y - 1 + j;
+        if (pieceBlocks[i][j] != 0 && blockX >= 0 && blockX < cols && blockY >= 0 && blockY < rows) {
+          blocks[blockX][blockY].setGhost(pieceBlocks[i][j]);
+          ghost.add(blockX, blockY);
+        }
+      }
+    }
+  }
+
+  /**
+   * Remove the hint piece
+   */
+  public void clearGhost() {
+    ghost.forEach((x, y) -> blocks[x][y].setGhost(0));
+    ghost.clear();
+  }
+
   /**
    * call the listener of the blocks in the lines which need to be clear
    *
    * @param gameBlockCoordinates the coordinates set of block
    */
-  public void fadeOut(Set<GameBlockCoordinate> gameBlockCoordinates) {
-
-    for (GameBlockCoordinate gameBlockCoordinate : gameBlockCoordinates) {
-      blocks[gameBlockCoordinate.getX()][gameBlockCoordinate.getY()].fade();//the blocks we need to set fade effect
-    }
+  public void fadeOut(CoordinateSet gameBlockCoordinates) {
+    //the blocks we need to set fade effect
+    gameBlockCoordinates.forEach((x, y) -> blocks[x][y].fade());
   }
 
 }
@@ -0,0 +1,168 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.animation.AnimationTimer;
+import uk.ac.soton.comp1206.bot.HintSearch;
+import uk.ac.soton.comp1206.core.GamePiece;
+import uk.ac.soton.comp1206.core.MoveList;
+import uk.ac.soton.comp1206.event.GameEvent;
+import uk.ac.soton.comp1206.event.GameEventListener;
+import uk.ac.soton.comp1206.game.Game;
+
+/**
+ * Shows the best place for the current piece as a faint ghost piece while the mouse is over a GameBoard.
+ * <p>
+ * The hint is worked out by a HintSearch on its own thread. Once per pulse the overlay reads whatever the search has
+ * found so far and draws it, so the hint gets better while the player looks at it and the JavaFX thread never waits.
+ * The search is started again whenever a new piece is dealt, or the piece is rotated or swapped, and is cancelled
+ * when the mouse leaves the board.
+ */
+public class HintOverlay {
+
+  /**
+   * the board the hint is drawn on
+   */
+  private final GameBoard board;
+
+  /**
+   * the game being hinted
+   */
+  private final Game game;
+
+  /**
+   * finds the hint
+   */
+  private final HintSearch search;
+
+  /**
+   * restarts the search when a new piece is dealt
+   */
+  private final GameEventListener nextPiece = (type, a, b) -> restart();
+
+  /**
+   * checks the game and redraws the hint once per pulse
+   */
+  private final AnimationTimer pulse = new AnimationTimer() {
+    @Override
+    public void handle(long now) {
+      update();
+    }
+  };
+
+  /**
+   * true while a search for the state below is running or finished
+   */
+  private boolean searching;
+
+  /**
+   * code of the current piece the search is for
+   */
+  private int currentCode;
+
+  /**
+   * code of the following piece the search is for, or -1
+   */
+  private int followingCode;
+
+  /**
+   * hash of the grid the search is for
+   */
+  private long hash;
+
+  /**
+   * the move drawn on the board, or -1
+   */
+  private int shown = -1;
+
+  /**
+   * Create a hint overlay
+   *
+   * @param board  the board the hint is drawn on
+   * @param game   the game being hinted
+   * @param search finds the hint
+   */
+  public HintOverlay(GameBoard board, Game game, HintSearch search) {
+    this.board = board;
+    this.game = game;
+    this.search = search;
+  }
+
+  /**
+   * Start showing hints
+   */
+  public void start() {
+    game.getEventBus().subscribePulse(GameEvent.NEXT_PIECE, nextPiece);
+    pulse.start();
+  }
+
+  /**
+   * Stop showing hints and cancel the search
+   */
+  public void stop() {
+    pulse.stop();
+    game.getEventBus().unsubscribe(GameEvent.NEXT_PIECE, nextPiece);
+    cancel();
+  }
+
+  /**
+   * Start the search again at the next pulse
+   */
+  private void restart() {
+    searching = false;
+  }
+
+  /**
+   * Cancel the search and remove the hint
+   */
+  private void cancel() {
+    if (searching) {
+      search.cancel();
+      searching = false;
+    }
+    hide();
+  }
+
+  /**
+   * remove the hint from the board
+   */
+  private void hide() {
+    if (shown >= 0) {
+      board.clearGhost();
+      shown = -1;
+    }
+  }
+
+  /**
+   * Restart the search if the game has changed, and draw the best move found so far
+   */
+  private void update() {
+    GamePiece current = game.getCurrentPiece();
+    if (!board.isHover() || current == null) {
+      cancel();
+      return;
+    }
+    GamePiece following = game.getFollowingPiece();
+    int followingPieceCode = following == null ? -1 : following.getCode();
+    long gridHash = game.getGrid().getHash();
+    if (!searching || current.getCode() != currentCode || followingPieceCode != followingCode
+        || gridHash != hash) {
+      currentCode = current.getCode();
+      followingCode = followingPieceCode;
+      hash = gridHash;
+      searching = true;
+      hide();
+      search.start(game.getGrid().snapshot(), current, following);
+      return;
+    }
+
+    int move = search.getBest();
+    if (move == shown) {
+      return;
+    }
+    if (move < 0) {
+      hide();
+    } else {
+      board.showGhost(current, MoveList.unpackX(move), MoveList.unpackY(move));
+      shown = move;
+    }
+  }
+}
@@ -1,6 +1,6 @@
 package uk.ac.soton.comp1206.component;
 
-import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.core.GamePiece;
 
 
 /**
@@ -28,9 +28,14 @@ public class PieceBoard extends GameBoard {
    * @param piece upcoming piece
    */
   public void setPiece(GamePiece piece) {
-    grid.reset();
-
-    grid.playPiece(piece, 1, 1);
+    //one transaction, so blocks which keep their colour are not repainted
+    grid.batch(() -> {
+      grid.reset();
+      //a multiplayer game may be waiting for its piece from the server
+      if (piece != null) {
+        grid.playPiece(piece, 1, 1);
+      }
+    });
   }
 
 
@@ -0,0 +1,73 @@
+package uk.ac.soton.comp1206.core;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deals pieces from a shuffled bag holding one of every piece. When the bag is empty it is refilled and shuffled
+ * again, so every piece turns up once in every 15 pieces dealt. The bag is reused, so dealing allocates nothing.
+ */
+public class BagPieceGenerator implements SplittablePieceGenerator {
+
+  /**
+   * the source of random numbers
+   */
+  private final SplittableRandom random;
+
+  /**
+   * the piece numbers in the bag, in the order they will be dealt
+   */
+  private final int[] bag = new int[GamePiece.PIECES];
+
+  /**
+   * index of the next piece to deal from the bag
+   */
+  private int next = GamePiece.PIECES;
+
+  /**
+   * Create a generator which shuffles with the given random source
+   *
+   * @param random random source, owned by this generator from now on
+   */
+  public BagPieceGenerator(SplittableRandom random) {
+    this.random = random;
+    for (int i = 0; i < bag.length; i++) {
+      bag[i] = i;
+    }
+  }
+
+  /**
+   * Get the next piece to deal, refilling the bag when it is empty
+   *
+   * @return the next piece from the bag
+   */
+  @Override
+  public GamePiece next() {
+    if (next == bag.length) {
+      shuffle();
+      next = 0;
+    }
+    return GamePiece.createPiece(bag[next++]);
+  }
+
+  /**
+   * Create a new generator with an independent stream of pieces and a full bag
+   *
+   * @return the split generator
+   */
+  @Override
+  public SplittablePieceGenerator split() {
+    return new BagPieceGenerator(random.split());
+  }
+
+  /**
+   * Fisher-Yates shuffle of the bag
+   */
+  private void shuffle() {
+    for (int i = bag.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int swap = bag[i];
+      bag[i] = bag[j];
+      bag[j] = swap;
+    }
+  }
+}
@@ -0,0 +1,631 @@
+package uk.ac.soton.comp1206.core;
+
+/**
+ * The Board is the plain state of a game board, with no dependency on JavaFX. It holds the value of every block, with 0
+ * meaning empty and any other value being the value of the piece which filled it. Values are packed four bits each,
+ * sixteen blocks to a long, so a value must be between 0 and 15.
+ * <p>
+ * A snapshot of the board shares the packed values instead of copying them. The board only copies them, once, when it
+ * is next changed, so taking a snapshot after every move costs nothing when the board does not change in between.
+ * <p>
+ * Alongside the values the Board keeps a bitboard of which blocks are occupied, one long per row and one long per
+ * column, so checking a placement or a full line is a mask comparison rather than a walk over the board. This limits
+ * a Board to 64 columns and 64 rows.
+ * <p>
+ * It also counts how many blocks are filled in every row and column, updated as blocks change, so after a placement
+ * only the rows and columns the piece touched need to be looked at.
+ * <p>
+ * It keeps a Zobrist hash of its blocks up to date as they change, so comparing two boards or looking one up in a
+ * transposition table does not need a walk over the blocks.
+ * <p>
+ * A Board can be watched by a single BoardListener, which the Grid uses to mirror it into properties for display.
+ */
+public class Board {
+
+  /**
+   * Returned by shiftMask when a piece row would leave the board
+   */
+  private static final long OUT_OF_BOUNDS = -1L;
+
+  /**
+   * The number of columns in this board
+   */
+  private final int cols;
+
+  /**
+   * The number of rows in this board
+   */
+  private final int rows;
+
+  /**
+   * The largest value a block can hold
+   */
+  public static final int MAX_VALUE = BoardSnapshot.MAX_VALUE;
+
+  /**
+   * The value of every block, stored row by row and packed by BoardSnapshot.pack
+   */
+  private long[] cells;
+
+  /**
+   * the Zobrist hash of the blocks
+   */
+  private long hash;
+
+  /**
+   * true while the packed values are shared with a snapshot, so they must be copied before they are changed
+   */
+  private boolean shared;
+
+  /**
+   * Occupancy of each row, bit x of rowMasks[y] is set when the block at (x, y) is filled
+   */
+  private final long[] rowMasks;
+
+  /**
+   * Occupancy of each column, bit y of colMasks[x] is set when the block at (x, y) is filled
+   */
+  private final long[] colMasks;
+
+  /**
+   * The number of filled blocks in each row
+   */
+  private final int[] rowCounts;
+
+  /**
+   * The number of filled blocks in each column
+   */
+  private final int[] colCounts;
+
+  /**
+   * The row mask of a completely filled row
+   */
+  private final long fullRow;
+
+  /**
+   * listener which is told whenever a block changes value
+   */
+  private BoardListener listener;
+
+  /**
+   * Create a new empty Board with the specified number of columns and rows
+   *
+   * @param cols number of columns
+   * @param rows number of rows
+   */
+  public Board(int cols, int rows) {
+    if (cols < 1 || rows < 1 || cols > Long.SIZE || rows > Long.SIZE) {
+      throw new IllegalArgumentException("Unsupported board size: " + cols + " x " + rows);
+    }
+    this.cols = cols;
+    this.rows = rows;
+
+    cells = new long[BoardSnapshot.words(cols * rows)];
+    rowMasks = new long[rows];
+    colMasks = new long[cols];
+    rowCounts = new int[rows];
+    colCounts = new int[cols];
+    fullRow = cols == Long.SIZE ? -1L : (1L << cols) - 1;
+  }
+
+  /**
+   * Create a copy of this board with no listener, used to try out moves
+   *
+   * @return the copy
+   */
+  public Board copy() {
+    Board copy = new Board(cols, rows);
+    System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+    System.arraycopy(rowMasks, 0, copy.rowMasks, 0, rows);
+    System.arraycopy(colMasks, 0, copy.colMasks, 0, cols);
+    System.arraycopy(rowCounts, 0, copy.rowCounts, 0, rows);
+    System.arraycopy(colCounts, 0, copy.colCounts, 0, cols);
+    copy.hash = hash;
+    return copy;
+  }
+
+  /**
+   * Set the listener which is told whenever a block changes value
+   *
+   * @param listener the board listener, or null to remove it
+   */
+  public void setListener(BoardListener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Get the number of columns in this board
+   *
+   * @return number of columns
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Get the number of rows in this board
+   *
+   * @return number of rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Update the value at the given x and y index within the board
+   *
+   * @param x     column
+   * @param y     row
+   * @param value the new value
+   */
+  public void set(int x, int y, int value) {
+    if (x < 0 || x >= cols || y < 0 || y >= rows) {
+      throw new IndexOutOfBoundsException("No such block: " + x + "," + y);
+    }
+    if (value < 0 || value > MAX_VALUE) {
+      throw new IllegalArgumentException("Block values must be between 0 and " + MAX_VALUE + ", not " + value);
+    }
+    int index = y * cols + x;
+    int old = BoardSnapshot.unpack(cells, index);
+    if (old == value) {
+      return;
+    }
+    if (shared) {
+      //a snapshot still uses the values, so take our own copy first
+      cells = cells.clone();
+      shared = false;
+    }
+    boolean wasEmpty = old == 0;
+    BoardSnapshot.pack(cells, index, value);
+    hash ^= Zobrist.block(index, old) ^ Zobrist.block(index, value);
+    //keep the bitboards and counters in step with the value
+    if (value == 0) {
+      rowMasks[y] &= ~(1L << x);
+      colMasks[x] &= ~(1L << y);
+      rowCounts[y]--;
+      colCounts[x]--;
+    } else {
+      rowMasks[y] |= 1L << x;
+      colMasks[x] |= 1L << y;
+      if (wasEmpty) {
+        rowCounts[y]++;
+        colCounts[x]++;
+      }
+    }
+    if (listener != null) {
+      listener.blockChanged(x, y, value);
+    }
+  }
+
+  /**
+   * Get the value represented at the given x and y index within the board
+   *
+   * @param x column
+   * @param y row
+   * @return the value, or -1 if there is no such block
+   */
+  public int get(int x, int y) {
+    if (x < 0 || x >= cols || y < 0 || y >= rows) {
+      //No such index
+      return -1;
+    }
+    return BoardSnapshot.unpack(cells, y * cols + x);
+  }
+
+  /**
+   * Copy every value on the board, row by row, so the block at (x, y) is at index y * cols + x
+   *
+   * @return a copy of the values
+   */
+  public int[] toArray() {
+    int[] values = new int[cols * rows];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = BoardSnapshot.unpack(cells, i);
+    }
+    return values;
+  }
+
+  /**
+   * Get the Zobrist hash of the blocks, which is 0 for an empty board
+   *
+   * @return the hash
+   */
+  public long getHash() {
+    return hash;
+  }
+
+  /**
+   * Get the Zobrist hash of the blocks together with the current and following pieces
+   *
+   * @param currentPiece   the current piece
+   * @param followingPiece the following piece
+   * @return the hash of the game state
+   */
+  public long getHash(GamePiece currentPiece, GamePiece followingPiece) {
+    return hash ^ Zobrist.currentPiece(currentPiece) ^ Zobrist.followingPiece(followingPiece);
+  }
+
+  /**
+   * Take an immutable snapshot of the board. The snapshot shares the packed values until the board next changes.
+   *
+   * @return the snapshot
+   */
+  public BoardSnapshot snapshot() {
+    shared = true;
+    return new BoardSnapshot(cols, rows, cells, hash);
+  }
+
+  /**
+   * Set every block to the value it has in a snapshot
+   *
+   * @param snapshot a snapshot of a board of the same size
+   */
+  public void restore(BoardSnapshot snapshot) {
+    if (snapshot.getCols() != cols || snapshot.getRows() != rows) {
+      throw new IllegalArgumentException("Snapshot is " + snapshot.getCols() + " x " + snapshot.getRows()
+          + ", board is " + cols + " x " + rows);
+    }
+    for (int y = 0; y < rows; y++) {
+      for (int x = 0; x < cols; x++) {
+        set(x, y, snapshot.get(x, y));
+      }
+    }
+  }
+
+  /**
+   * Get the occupancy bitboard of a row, bit x is set when the block at (x, y) is filled
+   *
+   * @param y row
+   * @return the row mask
+   */
+  public long getRowMask(int y) {
+    return rowMasks[y];
+  }
+
+  /**
+   * Get the occupancy bitboard of a column, bit y is set when the block at (x, y) is filled
+   *
+   * @param x column
+   * @return the column mask
+   */
+  public long getColMask(int x) {
+    return colMasks[x];
+  }
+
+  /**
+   * Get the number of filled blocks in a row
+   *
+   * @param y row
+   * @return filled blocks in the row
+   */
+  public int getRowCount(int y) {
+    return rowCounts[y];
+  }
+
+  /**
+   * Get the number of filled blocks in a column
+   *
+   * @param x column
+   * @return filled blocks in the column
+   */
+  public int getColCount(int x) {
+    return colCounts[x];
+  }
+
+  /**
+   * check if every block in a row is filled
+   *
+   * @param y row
+   * @return true if the row is full
+   */
+  public boolean isRowFull(int y) {
+    return rowCounts[y] == cols;
+  }
+
+  /**
+   * check if every block in a column is filled
+   *
+   * @param x column
+   * @return true if the column is full
+   */
+  public boolean isColFull(int x) {
+    return colCounts[x] == rows;
+  }
+
+  /**
+   * Get every full row in the board
+   *
+   * @return a mask with bit y set for every full row y
+   */
+  public long fullRows() {
+    return fullRows(0, rows - 1);
+  }
+
+  /**
+   * Get the full rows between two rows, any part of the range outside the board is ignored
+   *
+   * @param fromY first row to check
+   * @param toY   last row to check
+   * @return a mask with bit y set for every full row y in the range
+   */
+  public long fullRows(int fromY, int toY) {
+    long full = 0;
+    for (int y = Math.max(fromY, 0); y <= Math.min(toY, rows - 1); y++) {
+      if (rowCounts[y] == cols) {
+        full |= 1L << y;
+      }
+    }
+    return full;
+  }
+
+  /**
+   * Get every full column in the board
+   *
+   * @return a mask with bit x set for every full column x
+   */
+  public long fullCols() {
+    return fullCols(0, cols - 1);
+  }
+
+  /**
+   * Get the full columns between two columns, any part of the range outside the board is ignored
+   *
+   * @param fromX first column to check
+   * @param toX   last column to check
+   * @return a mask with bit x set for every full column x in the range
+   */
+  public long fullCols(int fromX, int toX) {
+    long full = 0;
+    for (int x = Math.max(fromX, 0); x <= Math.min(toX, cols - 1); x++) {
+      if (colCounts[x] == rows) {
+        full |= 1L << x;
+      }
+    }
+    return full;
+  }
+
+  /**
+   * check if we could place a piece in (x,y) position
+   *
+   * @param gamePiece the piece we want place
+   * @param x         the x coordinate of the centre of the piece
+   * @param y         the y coordinate of the centre of the piece
+   * @return if we could place here
+   */
+  public boolean canPlayPiece(GamePiece gamePiece, int x, int y) {
+    x = x - 1;
+    y = y - 1;
+    for (int j = 0; j < 3; j++) {
+      long pieceRow = gamePiece.getRowMask(j);
+      if (pieceRow == 0) {
+        continue;
+      }
+      int row = y + j;
+      if (row < 0 || row >= rows) {
+        return false;
+      }
+      long shifted = shiftMask(pieceRow, x);
+      if (shifted == OUT_OF_BOUNDS || (rowMasks[row] & shifted) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * used to assist to canPlayPiece, checks every row of the piece against the row bitboards
+   *
+   * @param pieceBlock the piece we need to check
+   * @param x          the x coordinate of the centre of the piece
+   * @param y          the y coordinate of the centre of the piece
+   * @return if we could play a piece
+   */
+  public boolean ifPlay(int[][] pieceBlock, int x, int y) {
+    x = x - 1;
+    y = y - 1;
+    for (int j = 0; j < pieceBlock[0].length; j++) {
+      //build the mask of this row of the piece
+      long pieceRow = 0;
+      for (int i = 0; i < pieceBlock.length; i++) {
+        if (pieceBlock[i][j] != 0) {
+          pieceRow |= 1L << i;
+        }
+      }
+      if (pieceRow == 0) {
+        //if the whole row is empty we just simply continue
+        continue;
+      }
+      int row = y + j;
+      if (row < 0 || row >= rows) {
+        return false;
+      }
+      long shifted = shiftMask(pieceRow, x);
+      if (shifted == OUT_OF_BOUNDS || (rowMasks[row] & shifted) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Find every legal placement of a piece, in every rotation which fills different blocks
+   *
+   * @param gamePiece the piece to place
+   * @return a new list of the legal moves
+   */
+  public MoveList legalMoves(GamePiece gamePiece) {
+    MoveList moves = new MoveList();
+    legalMoves(gamePiece, moves);
+    return moves;
+  }
+
+  /**
+   * Find every legal placement of a piece, in every rotation which fills different blocks, and put them in a list
+   * <p>
+   * For each row the piece could be centred on, the blocked columns are worked out for every column at once by
+   * shifting the row bitboards under each block of the piece, so the cost does not depend on the number of columns.
+   *
+   * @param gamePiece the piece to place
+   * @param moves     the list to fill, which is cleared first
+   * @return the number of legal moves
+   */
+  public int legalMoves(GamePiece gamePiece, MoveList moves) {
+    moves.clear();
+    for (GamePiece rotation : gamePiece.getDistinctRotations()) {
+      addMoves(rotation, moves, false);
+    }
+    return moves.size();
+  }
+
+  /**
+   * check if a piece can be placed anywhere on the board in any rotation
+   *
+   * @param gamePiece the piece to place
+   * @return true if there is at least one legal move
+   */
+  public boolean hasLegalMove(GamePiece gamePiece) {
+    for (GamePiece rotation : gamePiece.getDistinctRotations()) {
+      if (addMoves(rotation, null, true)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * used to assist legalMoves, find the legal placements of a piece in one rotation
+   *
+   * @param gamePiece the rotated piece
+   * @param moves     the list to add to, may be null when only checking
+   * @param firstOnly stop at the first legal move
+   * @return true if any legal move was found
+   */
+  private boolean addMoves(GamePiece gamePiece, MoveList moves, boolean firstOnly) {
+    //the centre must be on the board and every block of the piece must be inside it
+    int minX = Math.max(0, 1 - gamePiece.getMinCol());
+    int maxX = Math.min(cols - 1, cols - gamePiece.getMaxCol());
+    int minY = Math.max(0, 1 - gamePiece.getMinRow());
+    int maxY = Math.min(rows - 1, rows - gamePiece.getMaxRow());
+    if (minX > maxX || minY > maxY) {
+      return false;
+    }
+    long columns = (-1L >>> (Long.SIZE - 1 - maxX)) & (-1L << minX);
+
+    boolean found = false;
+    for (int y = minY; y <= maxY; y++) {
+      //bit x of blocked is set when placing the centre at column x would cover a filled block
+      long blocked = 0;
+      for (int j = gamePiece.getMinRow(); j <= gamePiece.getMaxRow(); j++) {
+        long occupied = rowMasks[y - 1 + j];
+        for (long bits = gamePiece.getRowMask(j); bits != 0; bits &= bits - 1) {
+          int i = Long.numberOfTrailingZeros(bits);
+          blocked |= i == 0 ? occupied << 1 : occupied >>> (i - 1);
+        }
+      }
+      for (long free = columns & ~blocked; free != 0; free &= free - 1) {
+        found = true;
+        if (firstOnly) {
+          return true;
+        }
+        moves.add(Long.numberOfTrailingZeros(free), y, gamePiece.getRotation());
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Move a row mask of a piece to start at the given column
+   *
+   * @param mask the row mask, with bit 0 for the leftmost block of the piece
+   * @param x    the column the leftmost block of the piece lands on
+   * @return the shifted mask, or OUT_OF_BOUNDS if a filled block would land outside the board
+   */
+  private long shiftMask(long mask, int x) {
+    long shifted;
+    if (x < 0) {
+      if (x <= -Long.SIZE || (mask & ((1L << -x) - 1)) != 0) {
+        return OUT_OF_BOUNDS;
+      }
+      shifted = mask >>> -x;
+    } else {
+      if (x >= Long.SIZE) {
+        return OUT_OF_BOUNDS;
+      }
+      shifted = mask << x;
+      if ((shifted >>> x) != mask) {
+        return OUT_OF_BOUNDS;
+      }
+    }
+    if ((shifted & ~fullRow) != 0) {
+      return OUT_OF_BOUNDS;
+    }
+    return shifted;
+  }
+
+  /**
+   * place a piece with its centre at (x,y)
+   *
+   * @param gamePiece the piece we are about to place
+   * @param x         the x coordinate
+   * @param y         the y coordinate
+   */
+  public void playPiece(GamePiece gamePiece, int x, int y) {
+    play(gamePiece.getBlocks(), x - 1, y - 1);
+  }
+
+  /**
+   * used to assist playPiece
+   *
+   * @param pieceBlock the pieceBlock we need to place
+   * @param x          the x coordinate of the top left of the piece
+   * @param y          the y coordinate of the top left of the piece
+   */
+  public void play(int[][] pieceBlock, int x, int y) {
+    for (int i = 0; i < pieceBlock.length; i++) {
+      for (int j = 0; j < pieceBlock[i].length; j++) {
+        int place = pieceBlock[i][j];
+        if (place == 0) {
+          continue;
+        }
+        //set to correspond piece
+        set(i + x, j + y, place);
+      }
+    }
+  }
+
+  /**
+   * Empty every block in the given rows and columns
+   *
+   * @param fullRows mask of the rows to clear
+   * @param fullCols mask of the columns to clear
+   * @return the number of blocks which were cleared
+   */
+  public int clearLines(long fullRows, long fullCols) {
+    int blocks = Long.bitCount(fullRows) * cols + Long.bitCount(fullCols) * rows
+            - Long.bitCount(fullRows) * Long.bitCount(fullCols);
+    for (long bits = fullRows; bits != 0; bits &= bits - 1) {
+      int y = Long.numberOfTrailingZeros(bits);
+      for (int x = 0; x < cols; x++) {
+        set(x, y, 0);
+      }
+    }
+    for (long bits = fullCols; bits != 0; bits &= bits - 1) {
+      int x = Long.numberOfTrailingZeros(bits);
+      for (int y = 0; y < rows; y++) {
+        set(x, y, 0);
+      }
+    }
+    return blocks;
+  }
+
+  /**
+   * reset the board
+   */
+  public void reset() {
+    for (int y = 0; y < rows; y++) {
+      for (int x = 0; x < cols; x++) {
+        set(x, y, 0);
+      }
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package uk.ac.soton.comp1206.core;
+
+/**
+ * listener which is told whenever a block on a Board changes value
+ */
+public interface BoardListener {
+
+  /**
+   * abstract method which is called after a block changes
+   *
+   * @param x     column of the block
+   * @param y     row of the block
+   * @param value the new value of the block
+   */
+  public void blockChanged(int x, int y, int value);
+}
@@ -0,0 +1,189 @@
+package uk.ac.soton.comp1206.core;
+
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of a Board. The value of every block is packed into four bits, sixteen blocks to a long, so a
+ * 5x5 board fits in two longs. The packed values are shared with the board they came from, which copies them before
+ * it next changes.
+ */
+public final class BoardSnapshot {
+
+  /**
+   * The largest value a block can hold
+   */
+  public static final int MAX_VALUE = 15;
+
+  /**
+   * bits used by each block
+   */
+  private static final int BITS = 4;
+
+  /**
+   * blocks packed into each long
+   */
+  private static final int PER_WORD = Long.SIZE / BITS;
+
+  /**
+   * The number of columns
+   */
+  private final int cols;
+
+  /**
+   * The number of rows
+   */
+  private final int rows;
+
+  /**
+   * The packed values, stored row by row, never changed
+   */
+  private final long[] cells;
+
+  /**
+   * The Zobrist hash of the blocks
+   */
+  private final long hash;
+
+  /**
+   * Create a snapshot over packed values, which must not change afterwards
+   *
+   * @param cols  number of columns
+   * @param rows  number of rows
+   * @param cells packed values
+   * @param hash  the Zobrist hash of the blocks
+   */
+  BoardSnapshot(int cols, int rows, long[] cells, long hash) {
+    this.cols = cols;
+    this.rows = rows;
+    this.cells = cells;
+    this.hash = hash;
+  }
+
+  /**
+   * Get the number of longs needed to pack the given number of blocks
+   *
+   * @param blocks number of blocks
+   * @return number of longs
+   */
+  static int words(int blocks) {
+    return (blocks + PER_WORD - 1) / PER_WORD;
+  }
+
+  /**
+   * Read a packed value
+   *
+   * @param cells packed values
+   * @param index index of the block, y * cols + x
+   * @return the value
+   */
+  static int unpack(long[] cells, int index) {
+    return (int) (cells[index / PER_WORD] >>> (index % PER_WORD * BITS)) & MAX_VALUE;
+  }
+
+  /**
+   * Write a packed value
+   *
+   * @param cells packed values
+   * @param index index of the block, y * cols + x
+   * @param value the value, between 0 and MAX_VALUE
+   */
+  static void pack(long[] cells, int index, int value) {
+    int shift = index % PER_WORD * BITS;
+    int word = index / PER_WORD;
+    cells[word] = cells[word] & ~((long) MAX_VALUE << shift) | (long) value << shift;
+  }
+
+  /**
+   * Get the number of columns
+   *
+   * @return number of columns
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Get the number of rows
+   *
+   * @return number of rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the value of a block
+   *
+   * @param x column
+   * @param y row
+   * @return the value, or -1 if there is no such block
+   */
+  public int get(int x, int y) {
+    if (x < 0 || x >= cols || y < 0 || y >= rows) {
+      return -1;
+    }
+    return unpack(cells, y * cols + x);
+  }
+
+  /**
+   * Get the Zobrist hash of the blocks, the same as the board had when the snapshot was taken
+   *
+   * @return the hash
+   */
+  public long getHash() {
+    return hash;
+  }
+
+  /**
+   * Find the rows which differ from another snapshot of the same size, comparing sixteen blocks at a time
+   *
+   * @param other the other snapshot
+   * @return a mask with bit y set when row y differs, every row if the sizes differ
+   */
+  public long changedRows(BoardSnapshot other) {
+    if (other.cols != cols || other.rows != rows) {
+      return -1L >>> (Long.SIZE - rows);
+    }
+    if (other.cells == cells) {
+      return 0;
+    }
+    long changed = 0;
+    for (int word = 0; word < cells.length; word++) {
+      //each block which differs leaves at least one bit set in its four
+      long diff = cells[word] ^ other.cells[word];
+      while (diff != 0) {
+        int block = Long.numberOfTrailingZeros(diff) / BITS;
+        changed |= 1L << ((word * PER_WORD + block) / cols);
+        diff &= ~((long) MAX_VALUE << (block * BITS));
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Compare the blocks of this snapshot with another
+   *
+   * @param obj other object to compare to
+   * @return true if both have the same size and values
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (!(obj instanceof BoardSnapshot other)) {
+      return false;
+    }
+    return hash == other.hash && cols == other.cols && rows == other.rows && Arrays.equals(cells, other.cells);
+  }
+
+  /**
+   * Calculate a hash code from the Zobrist hash
+   *
+   * @return hash code
+   */
+  @Override
+  public int hashCode() {
+    return (int) (hash ^ (hash >>> 32));
+  }
+}
@@ -0,0 +1,175 @@
+package uk.ac.soton.comp1206.core;
+
+/**
+ * A reusable set of block coordinates on a board of up to 64x64 blocks, stored as one bitmask per row. Adding a whole
+ * row or column is a single mask operation, and filling the set again allocates nothing.
+ */
+public class CoordinateSet {
+
+  /**
+   * Receives the coordinates of a set one at a time
+   */
+  public interface Consumer {
+
+    /**
+     * called for every coordinate in the set
+     *
+     * @param x column
+     * @param y row
+     */
+    void accept(int x, int y);
+  }
+
+  /**
+   * Number of columns
+   */
+  private final int cols;
+
+  /**
+   * Number of rows
+   */
+  private final int rows;
+
+  /**
+   * bit x of rowMasks[y] is set when (x, y) is in the set
+   */
+  private final long[] rowMasks;
+
+  /**
+   * a row with every column set
+   */
+  private final long fullRow;
+
+  /**
+   * Create an empty set for a board of the given size
+   *
+   * @param cols number of columns
+   * @param rows number of rows
+   */
+  public CoordinateSet(int cols, int rows) {
+    if (cols < 1 || rows < 1 || cols > 64 || rows > 64) {
+      throw new IllegalArgumentException("Boards can be at most 64x64, not " + cols + "x" + rows);
+    }
+    this.cols = cols;
+    this.rows = rows;
+    this.rowMasks = new long[rows];
+    this.fullRow = cols == 64 ? -1L : (1L << cols) - 1;
+  }
+
+  /**
+   * Empty the set
+   */
+  public void clear() {
+    for (int y = 0; y < rows; y++) {
+      rowMasks[y] = 0;
+    }
+  }
+
+  /**
+   * Add a coordinate
+   *
+   * @param x column
+   * @param y row
+   */
+  public void add(int x, int y) {
+    if (x < 0 || x >= cols || y < 0 || y >= rows) {
+      throw new IndexOutOfBoundsException("No such block: " + x + "," + y);
+    }
+    rowMasks[y] |= 1L << x;
+  }
+
+  /**
+   * Add every block of the given rows and columns
+   *
+   * @param fullRows mask with bit y set for every row y to add
+   * @param fullCols mask with bit x set for every column x to add
+   */
+  public void addLines(long fullRows, long fullCols) {
+    long cols = fullCols & fullRow;
+    for (int y = 0; y < rows; y++) {
+      rowMasks[y] |= (fullRows >>> y & 1L) != 0 ? fullRow : cols;
+    }
+  }
+
+  /**
+   * check if a coordinate is in the set
+   *
+   * @param x column
+   * @param y row
+   * @return true if it is in the set
+   */
+  public boolean contains(int x, int y) {
+    if (x < 0 || x >= cols || y < 0 || y >= rows) {
+      return false;
+    }
+    return (rowMasks[y] >>> x & 1L) != 0;
+  }
+
+  /**
+   * Get the coordinates of a row which are in the set
+   *
+   * @param y row
+   * @return mask with bit x set for every (x, y) in the set
+   */
+  public long getRowMask(int y) {
+    return rowMasks[y];
+  }
+
+  /**
+   * Get the number of coordinates in the set
+   *
+   * @return size of the set
+   */
+  public int size() {
+    int size = 0;
+    for (int y = 0; y < rows; y++) {
+      size += Long.bitCount(rowMasks[y]);
+    }
+    return size;
+  }
+
+  /**
+   * check if the set is empty
+   *
+   * @return true if empty
+   */
+  public boolean isEmpty() {
+    for (int y = 0; y < rows; y++) {
+      if (rowMasks[y] != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Visit every coordinate in the set, row by row
+   *
+   * @param consumer called with each coordinate
+   */
+  public void forEach(Consumer consumer) {
+    for (int y = 0; y < rows; y++) {
+      for (long bits = rowMasks[y]; bits != 0; bits &= bits - 1) {
+        consumer.accept(Long.numberOfTrailingZeros(bits), y);
+      }
+    }
+  }
+
+  /**
+   * Get the number of columns
+   *
+   * @return number of columns
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Get the number of rows
+   *
+   * @return number of rows
+   */
+  public int getRows() {
+    return rows;
+  }
+}
@@ -0,0 +1,295 @@
+package uk.ac.soton.comp1206.core;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A GameActor owns a GameEngine and is the only thing which touches it. Commands from the UI and timeouts from the
+ * game clock are put in a lock-free mailbox and run one at a time, so the engine never sees two threads.
+ * <p>
+ * After each batch of commands the actor publishes an immutable GameSnapshot. The UI takes the latest one once per
+ * pulse with poll, and never reads the engine directly. The events of the engine go to the actor's listener, which is
+ * called on the actor as they happen.
+ * <p>
+ * Actors run on a single shared daemon thread by default. Passing Runnable::run as the executor runs commands on the
+ * caller's thread, which together with a VirtualClock makes a game fully deterministic.
+ */
+public class GameActor {
+
+  /**
+   * logger for game actor
+   */
+  private static final Logger logger = LogManager.getLogger(GameActor.class);
+
+  /**
+   * the thread every actor runs on unless given another executor
+   */
+  private static final Executor SHARED = Executors.newSingleThreadExecutor(task -> {
+    Thread thread = new Thread(task, "game-actor");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * the engine this actor owns
+   */
+  private final GameEngine engine;
+
+  /**
+   * where the mailbox is drained
+   */
+  private final Executor executor;
+
+  /**
+   * commands waiting to run
+   */
+  private final ConcurrentLinkedQueue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+
+  /**
+   * true while the mailbox is queued on, or being drained by, the executor
+   */
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  /**
+   * the latest snapshot the UI has not taken yet
+   */
+  private final AtomicReference<GameSnapshot> latest = new AtomicReference<>();
+
+  /**
+   * the number of commands processed, only touched by the actor
+   */
+  private long commands;
+
+  /**
+   * Create an actor for an engine, running on the shared actor thread
+   *
+   * @param engine the engine to own, which must not be used directly afterwards
+   */
+  public GameActor(GameEngine engine) {
+    this(engine, SHARED);
+  }
+
+  /**
+   * Create an actor for an engine, running on the given executor
+   *
+   * @param engine   the engine to own, which must not be used directly afterwards
+   * @param executor where the commands run, one batch at a time
+   */
+  public GameActor(GameEngine engine, Executor executor) {
+    this.engine = engine;
+    this.executor = executor;
+    //timeouts become commands in the mailbox instead of running on the clock thread
+    engine.setClock(new MailboxClock(engine.getClock()));
+  }
+
+  /**
+   * Get the thread every actor runs on unless given another executor
+   *
+   * @return the shared executor
+   */
+  public static Executor sharedExecutor() {
+    return SHARED;
+  }
+
+  /**
+   * Get the engine owned by this actor. Only commands running on the actor may use it.
+   *
+   * @return the engine
+   */
+  public GameEngine getEngine() {
+    return engine;
+  }
+
+  /**
+   * set the listener which is told about the events of the engine, it is called on the actor
+   *
+   * @param listener game listener
+   */
+  public void setListener(GameListener listener) {
+    engine.setListener(listener);
+  }
+
+  /**
+   * Run a command against the engine on the actor. It counts towards the commands of the next snapshot, even if it
+   * throws, so the UI can still tell when the actor has caught up.
+   *
+   * @param command the command
+   */
+  public void submit(Runnable command) {
+    post(() -> {
+      try {
+        command.run();
+      } finally {
+        commands++;
+      }
+    });
+  }
+
+  /**
+   * Run a task on the actor without counting it as a command, used for messages which do not come from the player
+   *
+   * @param task the task
+   */
+  public void post(Runnable task) {
+    mailbox.offer(task);
+    if (scheduled.compareAndSet(false, true)) {
+      executor.execute(this::drain);
+    }
+  }
+
+  /**
+   * Place the current piece with its centre on the given block, if it is still the expected piece and it fits
+   *
+   * @param x    column
+   * @param y    row
+   * @param code the code of the piece the placement was checked for
+   */
+  public void place(int x, int y, int code) {
+    submit(() -> {
+      GamePiece piece = engine.getCurrentPiece();
+      if (piece != null && piece.getCode() == code) {
+        engine.place(x, y);
+      }
+    });
+  }
+
+  /**
+   * Rotate the current piece
+   *
+   * @param rotations number of rotations
+   */
+  public void rotate(int rotations) {
+    submit(() -> engine.rotateCurrentPiece(rotations));
+  }
+
+  /**
+   * Swap the current and following pieces
+   */
+  public void swap() {
+    submit(engine::swapCurrentPiece);
+  }
+
+  /**
+   * Time out the current piece now, as if the timer had run out
+   */
+  public void tick() {
+    submit(engine::gameLoop);
+  }
+
+  /**
+   * Take the latest snapshot, if one has been published since the last call
+   *
+   * @return the snapshot, or null if nothing has changed
+   */
+  public GameSnapshot poll() {
+    return latest.getAndSet(null);
+  }
+
+  /**
+   * Run everything in the mailbox, then publish a snapshot
+   */
+  private void drain() {
+    Runnable task;
+    while ((task = mailbox.poll()) != null) {
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        logger.error("Game command failed", e);
+      }
+    }
+    publish();
+    scheduled.set(false);
+    //something may have arrived after the mailbox looked empty
+    if (!mailbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+      executor.execute(this::drain);
+    }
+  }
+
+  /**
+   * Publish a snapshot of the engine, replacing any the UI has not taken
+   */
+  private void publish() {
+    latest.set(new GameSnapshot(engine, commands));
+  }
+
+  /**
+   * Wraps the engine's clock so that its tasks are posted to the mailbox instead of running on the clock thread
+   */
+  private class MailboxClock implements GameClock {
+
+    /**
+     * the clock which keeps the time
+     */
+    private final GameClock clock;
+
+    /**
+     * Create a new mailbox clock
+     *
+     * @param clock the clock which keeps the time
+     */
+    private MailboxClock(GameClock clock) {
+      this.clock = clock;
+    }
+
+    @Override
+    public long now() {
+      return clock.now();
+    }
+
+    @Override
+    public ScheduledTask schedule(Runnable task, long delay) {
+      MailboxTask mailboxTask = new MailboxTask(task);
+      mailboxTask.scheduled = clock.schedule(() -> post(mailboxTask), delay);
+      return mailboxTask;
+    }
+  }
+
+  /**
+   * A clock task which has been posted to the mailbox. Cancelling it also stops it if it is already in the mailbox,
+   * so a timeout which fires while a placement is queued does not run after the placement reset the timer.
+   */
+  private static class MailboxTask implements Runnable, GameClock.ScheduledTask {
+
+    /**
+     * the task to run
+     */
+    private final Runnable task;
+
+    /**
+     * the task on the underlying clock
+     */
+    private GameClock.ScheduledTask scheduled;
+
+    /**
+     * true once cancelled, only touched by the actor
+     */
+    private boolean cancelled;
+
+    /**
+     * Create a new mailbox task
+     *
+     * @param task the task to run
+     */
+    private MailboxTask(Runnable task) {
+      this.task = task;
+    }
+
+    @Override
+    public void run() {
+      if (!cancelled) {
+        task.run();
+      }
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      scheduled.cancel();
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package uk.ac.soton.comp1206.core;
+
+/**
+ * A GameClock tells the time and runs tasks after a delay, which is how a game runs its timer.
+ * <p>
+ * The real time clock is shared by every game, so running many games does not start a thread per game. A
+ * VirtualClock only moves when it is advanced, so tests and simulations decide how fast time passes.
+ */
+public interface GameClock {
+
+  /**
+   * Get the current time of this clock
+   *
+   * @return time in milliseconds
+   */
+  long now();
+
+  /**
+   * Run a task once after a delay
+   *
+   * @param task  the task to run
+   * @param delay delay in milliseconds
+   * @return a handle which can cancel the task
+   */
+  ScheduledTask schedule(Runnable task, long delay);
+
+  /**
+   * Get the clock which runs on wall clock time, shared by every game
+   *
+   * @return the real time clock
+   */
+  static GameClock realTime() {
+    return RealTimeClock.INSTANCE;
+  }
+
+  /**
+   * A task which has been scheduled on a clock
+   */
+  interface ScheduledTask {
+
+    /**
+     * stop the task from running, does nothing if it has already run
+     */
+    void cancel();
+  }
+}
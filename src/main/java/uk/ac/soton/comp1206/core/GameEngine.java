@@ -0,0 +1,659 @@
+package uk.ac.soton.comp1206.core;
+
+import java.util.ArrayDeque;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The GameEngine holds the rules and the state of a TetrECS game as plain primitive values. It has no dependency on
+ * JavaFX, so it can run without a toolkit, for example to simulate games on a build machine.
+ * <p>
+ * Everything that happens in the game is reported to a GameListener. The Game class in the game package is a thin
+ * adapter which mirrors the engine into JavaFX properties for the scenes to bind to.
+ */
+public class GameEngine {
+
+  /**
+   * logger for game engine
+   */
+  private static final Logger logger = LogManager.getLogger(GameEngine.class);
+
+  /**
+   * listener used until a real one is set
+   */
+  private static final GameListener NO_LISTENER = new GameListener() {
+  };
+
+  /**
+   * Number of rows
+   */
+  protected final int rows;
+
+  /**
+   * Number of columns
+   */
+  protected final int cols;
+
+  /**
+   * The board model linked to the game
+   */
+  protected final Board board;
+
+  /**
+   * where new pieces come from
+   */
+  private final PieceGenerator pieceGenerator;
+
+  /**
+   * The current piece in game, and is the piece which is shown on the right of the game
+   */
+  protected GamePiece currentPiece;
+
+  /**
+   * The following piece in the game
+   */
+  protected GamePiece followingPiece;
+
+  /**
+   * current score
+   */
+  protected int score = 0;
+
+  /**
+   * current level
+   */
+  protected int level = 0;
+
+  /**
+   * current lives
+   */
+  protected int lives = 3;
+
+  /**
+   * current multiplier
+   */
+  protected int multiplier = 1;
+
+  /**
+   * true once the game has run out of lives
+   */
+  protected boolean gameOver = false;
+
+  /**
+   * the listener which is told about everything that happens in the game
+   */
+  private GameListener listener = NO_LISTENER;
+
+  /**
+   * the clock the game timer runs on
+   */
+  private GameClock clock = GameClock.realTime();
+
+  /**
+   * the pending timeout of the current piece, null when the timer is not running
+   */
+  private GameClock.ScheduledTask timer;
+
+  /**
+   * the undo history, null unless undo has been enabled
+   */
+  private MoveJournal journal;
+
+  /**
+   * true while place is running, so the lines it clears are journalled
+   */
+  private boolean journalling;
+
+  /**
+   * true while a move is being redone, so the moves after it are kept
+   */
+  private boolean redoing;
+
+  /**
+   * pieces handed back by undo, dealt again before any new piece
+   */
+  private final ArrayDeque<GamePiece> returnedPieces = new ArrayDeque<>();
+
+  /**
+   * Create a new game engine with the specified columns and rows, using random pieces
+   *
+   * @param cols number of columns
+   * @param rows number of rows
+   */
+  public GameEngine(int cols, int rows) {
+    this(cols, rows, PieceGenerator.random());
+  }
+
+  /**
+   * Create a new game engine with the specified columns and rows, taking its pieces from the given generator
+   *
+   * @param cols           number of columns
+   * @param rows           number of rows
+   * @param pieceGenerator called whenever a new piece is needed
+   */
+  public GameEngine(int cols, int rows, PieceGenerator pieceGenerator) {
+    this.cols = cols;
+    this.rows = rows;
+    this.pieceGenerator = pieceGenerator;
+
+    //Create a new board model to represent the game state
+    this.board = new Board(cols, rows);
+  }
+
+  /**
+   * set the listener which is told about everything that happens in the game
+   *
+   * @param listener game listener
+   */
+  public void setListener(GameListener listener) {
+    this.listener = listener == null ? NO_LISTENER : listener;
+  }
+
+  /**
+   * set the clock the game timer runs on, must be called before the timer is started
+   *
+   * @param clock game clock
+   */
+  public void setClock(GameClock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * get the clock the game timer runs on
+   *
+   * @return game clock
+   */
+  public GameClock getClock() {
+    return clock;
+  }
+
+  /**
+   * Initialise a new game and start the timer
+   */
+  public void start() {
+    initialise();
+    loop();
+  }
+
+  /**
+   * Initialise a new game by dealing the current and following pieces
+   */
+  public void initialise() {
+    logger.trace("Initialising game engine");
+    currentPiece = drawPiece();
+    followingPiece = drawPiece();
+    listener.nextPiece(currentPiece, followingPiece);
+  }
+
+  /**
+   * Place the current piece with its centre on the given block, if it fits
+   *
+   * @param x column
+   * @param y row
+   * @return true if the piece was placed
+   */
+  public boolean place(int x, int y) {
+    if (!board.canPlayPiece(currentPiece, x, y)) {
+      return false;
+    }
+    if (journal != null) {
+      journal.record(MoveJournal.PLACEMENT, currentPiece, followingPiece, x, y, score, level, lives, multiplier,
+          redoing);
+    }
+    board.playPiece(currentPiece, x, y);
+    listener.piecePlaced(currentPiece, x, y);
+    nextPiece();
+    //only the rows and columns under the piece can have become full
+    journalling = journal != null;
+    try {
+      afterPiece(x - 1, y - 1, x + 1, y + 1);
+    } finally {
+      journalling = false;
+    }
+    //the next piece gets the full time
+    if (timer != null) {
+      resetLoop();
+    }
+    return true;
+  }
+
+  /**
+   * start the timer for the current piece
+   */
+  public void loop() {
+    int delay = getTimerDelay();
+    timer = clock.schedule(this::gameLoop, delay);
+    listener.loopStarted(delay);
+  }
+
+  /**
+   * called by the clock when the timer runs out, times out the current piece and starts the timer again
+   */
+  public void gameLoop() {
+    timer = null;
+    timeout();
+    if (!gameOver) {
+      loop();
+    }
+  }
+
+  /**
+   * cancel the pending timeout and start the timer again
+   */
+  public void resetLoop() {
+    stop();
+    loop();
+  }
+
+  /**
+   * stop the timer, nothing more will happen until it is started again
+   */
+  public void stop() {
+    if (timer != null) {
+      timer.cancel();
+      timer = null;
+    }
+  }
+
+  /**
+   * check if the timer is running
+   *
+   * @return true if a timeout is pending
+   */
+  public boolean isRunning() {
+    return timer != null;
+  }
+
+  /**
+   * load next piece and set following piece
+   */
+  public void nextPiece() {
+    //use following piece to replace current piece and update following piece
+    currentPiece = followingPiece;
+    followingPiece = drawPiece();
+    listener.nextPiece(currentPiece, followingPiece);
+  }
+
+  /**
+   * Use after place a piece, ask the board which rows and columns are full and clear them
+   */
+  public void afterPiece() {
+    afterPiece(0, 0, cols - 1, rows - 1);
+  }
+
+  /**
+   * Clear the full rows and columns within an area of the board, which is the area a piece was just placed in
+   *
+   * @param fromX first column to check
+   * @param fromY first row to check
+   * @param toX   last column to check
+   * @param toY   last row to check
+   */
+  public void afterPiece(int fromX, int fromY, int toX, int toY) {
+    long fullRows = board.fullRows(fromY, toY);
+    long fullCols = board.fullCols(fromX, toX);
+
+    int lines = Long.bitCount(fullRows) + Long.bitCount(fullCols);
+
+    if (lines > 0) {
+      if (journalling) {
+        journal.cleared(board, fullRows, fullCols);
+      }
+      int blocks = board.clearLines(fullRows, fullCols);
+      score(lines, blocks);
+
+      //add after applying the multiplier
+      multiplier++;
+      statsChanged();
+
+      listener.linesCleared(fullRows, fullCols, blocks);
+    } else if (multiplier != 1) {
+      multiplier = 1;
+      statsChanged();
+    }
+  }
+
+  /**
+   * use this method to count current score
+   *
+   * @param lines  the lines we cleared
+   * @param blocks the blocks we cleared
+   */
+  public void score(int lines, int blocks) {
+    score += lines * blocks * 10 * multiplier;
+    level = score / 1000;
+    statsChanged();
+    listener.scored(lines, blocks);
+  }
+
+  /**
+   * called when the timer runs out, discards the current piece and takes a life,
+   * or ends the game if there are no lives left
+   */
+  public void timeout() {
+    if (journal != null) {
+      journal.record(MoveJournal.TIMEOUT, currentPiece, followingPiece, 0, 0, score, level, lives, multiplier,
+          redoing);
+    }
+    //discard the current piece
+    nextPiece();
+
+    if (lives == 0) {
+      //if we have no more lives, we would stop the game
+      gameOver = true;
+      listener.gameOver();
+    } else {
+      loseLife();
+    }
+  }
+
+  /**
+   * take a life and reset the multiplier
+   */
+  public void loseLife() {
+    lives--;
+    multiplier = 1;
+    statsChanged();
+    listener.lifeLost();
+  }
+
+  /**
+   * rotate the current piece
+   */
+  public void rotateCurrentPiece() {
+    rotateCurrentPiece(1);
+  }
+
+  /**
+   * rotate the current piece the given number of times, three rotations turn it left once
+   *
+   * @param rotations number of rotations
+   */
+  public void rotateCurrentPiece(int rotations) {
+    if (currentPiece != null) {
+      currentPiece = currentPiece.rotated(rotations);
+    }
+  }
+
+  /**
+   * swap the current piece with following piece
+   */
+  public void swapCurrentPiece() {
+    GamePiece tempPiece = followingPiece;
+    followingPiece = currentPiece;
+    currentPiece = tempPiece;
+    listener.piecesSwapped();
+  }
+
+  /**
+   * check if either the current or the following piece can still be placed somewhere
+   *
+   * @return true if the player has a legal move
+   */
+  public boolean hasLegalMove() {
+    return board.hasLegalMove(currentPiece) || board.hasLegalMove(followingPiece);
+  }
+
+  /**
+   * get the time delay according to current level
+   *
+   * @return delay time
+   */
+  public int getTimerDelay() {
+    return timerDelay(level);
+  }
+
+  /**
+   * get the time delay of a level
+   *
+   * @param level the level
+   * @return delay time
+   */
+  public static int timerDelay(int level) {
+    int delay = 12000 - (500 * level);
+    return Math.max(delay, 2500);
+  }
+
+  /**
+   * Get the Zobrist hash of the game state, covering the board and the current and following pieces
+   *
+   * @return the hash
+   */
+  public long getStateHash() {
+    return board.getHash(currentPiece, followingPiece);
+  }
+
+  /**
+   * start recording every placement and timeout so they can be undone
+   */
+  public void enableUndo() {
+    if (journal == null) {
+      journal = new MoveJournal(cols, rows);
+    }
+  }
+
+  /**
+   * get the undo history
+   *
+   * @return the journal, or null if undo is not enabled
+   */
+  public MoveJournal getJournal() {
+    return journal;
+  }
+
+  /**
+   * check if there is a move to undo
+   *
+   * @return true if undo would do something
+   */
+  public boolean canUndo() {
+    return journal != null && journal.canUndo();
+  }
+
+  /**
+   * check if there is a move to redo
+   *
+   * @return true if redo would do something
+   */
+  public boolean canRedo() {
+    return journal != null && journal.canRedo();
+  }
+
+  /**
+   * Undo the latest placement or timeout. Only the blocks of the piece and the lines it cleared are touched, and the
+   * piece it dealt is handed back to be dealt again.
+   *
+   * @return true if a move was undone
+   */
+  public boolean undo() {
+    if (!canUndo()) {
+      return false;
+    }
+    int move = journal.undo();
+    GamePiece piece = journal.getPiece(move);
+    if (journal.getKind(move) == MoveJournal.PLACEMENT) {
+      //put back the cleared lines as they were just after the piece went down, then take the piece away
+      journal.restoreCleared(move, board);
+      int[][] blocks = piece.getBlocks();
+      int x = journal.getX(move) - 1;
+      int y = journal.getY(move) - 1;
+      for (int i = 0; i < blocks.length; i++) {
+        for (int j = 0; j < blocks[i].length; j++) {
+          if (blocks[i][j] != 0) {
+            board.set(x + i, y + j, 0);
+          }
+        }
+      }
+    }
+    //the following piece was dealt by this move
+    returnedPieces.push(followingPiece);
+    currentPiece = piece;
+    followingPiece = journal.getFollowingPiece(move);
+    score = journal.getScore(move);
+    level = journal.getLevel(move);
+    lives = journal.getLives(move);
+    multiplier = journal.getMultiplier(move);
+    gameOver = false;
+    statsChanged();
+    listener.nextPiece(currentPiece, followingPiece);
+    if (timer != null) {
+      resetLoop();
+    }
+    return true;
+  }
+
+  /**
+   * Redo the latest undone move, by making it again
+   *
+   * @return true if a move was redone
+   */
+  public boolean redo() {
+    if (!canRedo()) {
+      return false;
+    }
+    int move = journal.redoIndex();
+    //the pieces may have been rotated or swapped since the undo
+    currentPiece = journal.getPiece(move);
+    followingPiece = journal.getFollowingPiece(move);
+    redoing = true;
+    try {
+      if (journal.getKind(move) == MoveJournal.PLACEMENT) {
+        place(journal.getX(move), journal.getY(move));
+      } else {
+        timeout();
+        if (gameOver) {
+          stop();
+        } else if (timer != null) {
+          resetLoop();
+        }
+      }
+    } finally {
+      redoing = false;
+    }
+    return true;
+  }
+
+  /**
+   * Deal a piece, taking pieces handed back by undo first
+   *
+   * @return the piece
+   */
+  private GamePiece drawPiece() {
+    return returnedPieces.isEmpty() ? pieceGenerator.next() : returnedPieces.pop();
+  }
+
+  /**
+   * tell the listener the stats have changed
+   */
+  private void statsChanged() {
+    listener.statsChanged(score, level, lives, multiplier);
+  }
+
+  /**
+   * Get the board model inside this game representing the game state
+   *
+   * @return game board model
+   */
+  public Board getBoard() {
+    return board;
+  }
+
+  /**
+   * Get the number of columns in this game
+   *
+   * @return number of columns
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Get the number of rows in this game
+   *
+   * @return number of rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * get the current piece
+   *
+   * @return current piece
+   */
+  public GamePiece getCurrentPiece() {
+    return currentPiece;
+  }
+
+  /**
+   * set the current piece without dealing a new one
+   *
+   * @param currentPiece the new current piece
+   */
+  public void setCurrentPiece(GamePiece currentPiece) {
+    this.currentPiece = currentPiece;
+  }
+
+  /**
+   * get next piece
+   *
+   * @return next piece
+   */
+  public GamePiece getFollowingPiece() {
+    return followingPiece;
+  }
+
+  /**
+   * set the following piece without dealing a new one
+   *
+   * @param followingPiece the new following piece
+   */
+  public void setFollowingPiece(GamePiece followingPiece) {
+    this.followingPiece = followingPiece;
+  }
+
+  /**
+   * get the current score
+   *
+   * @return score
+   */
+  public int getScore() {
+    return score;
+  }
+
+  /**
+   * get the current level
+   *
+   * @return level
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * get the current lives
+   *
+   * @return lives
+   */
+  public int getLives() {
+    return lives;
+  }
+
+  /**
+   * get the current multiplier
+   *
+   * @return multiplier
+   */
+  public int getMultiplier() {
+    return multiplier;
+  }
+
+  /**
+   * check if the game has run out of lives
+   *
+   * @return true once the game is over
+   */
+  public boolean isGameOver() {
+    return gameOver;
+  }
+}
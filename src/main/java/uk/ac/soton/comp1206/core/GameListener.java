@@ -0,0 +1,83 @@
+package uk.ac.soton.comp1206.core;
+
+/**
+ * listener for everything that happens inside a GameEngine. Every method does nothing by default, so a listener only
+ * needs to implement the events it cares about.
+ */
+public interface GameListener {
+
+  /**
+   * called when the current and following pieces change
+   *
+   * @param currentPiece       current piece
+   * @param followingGamePiece next piece
+   */
+  default void nextPiece(GamePiece currentPiece, GamePiece followingGamePiece) {
+  }
+
+  /**
+   * called after a piece has been placed on the board, before the next piece is dealt
+   *
+   * @param piece the piece which was placed
+   * @param x     column of the centre of the piece
+   * @param y     row of the centre of the piece
+   */
+  default void piecePlaced(GamePiece piece, int x, int y) {
+  }
+
+  /**
+   * called after full lines have been emptied
+   *
+   * @param fullRows mask of the rows which were cleared
+   * @param fullCols mask of the columns which were cleared
+   * @param blocks   the number of blocks which were cleared
+   */
+  default void linesCleared(long fullRows, long fullCols, int blocks) {
+  }
+
+  /**
+   * called after the score has been increased
+   *
+   * @param lines  the lines we cleared
+   * @param blocks the blocks we cleared
+   */
+  default void scored(int lines, int blocks) {
+  }
+
+  /**
+   * called after a life has been lost
+   */
+  default void lifeLost() {
+  }
+
+  /**
+   * called after the current and following pieces have been swapped
+   */
+  default void piecesSwapped() {
+  }
+
+  /**
+   * called whenever the score, level, lives or multiplier change
+   *
+   * @param score      current score
+   * @param level      current level
+   * @param lives      current lives
+   * @param multiplier current multiplier
+   */
+  default void statsChanged(int score, int level, int lives, int multiplier) {
+  }
+
+  /**
+   * called whenever the timer is started again for the current piece
+   *
+   * @param delay time in milliseconds before the piece runs out
+   */
+  default void loopStarted(int delay) {
+  }
+
+  /**
+   * called when the game runs out of lives
+   */
+  default void gameOver() {
+  }
+}
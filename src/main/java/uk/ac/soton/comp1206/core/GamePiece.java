@@ -0,0 +1,446 @@
+package uk.ac.soton.comp1206.core;
+
+import java.util.Arrays;
+
+/**
+ * Instances of GamePiece Represents the model of a specific Game Piece with it's block makeup.
+ * <p>
+ * The GamePiece class also contains a factory for producing a GamePiece of a particular shape, as specified by it's
+ * number.
+ * <p>
+ * Every piece in every rotation is built once when the class is loaded and kept in a table, so a GamePiece is just a
+ * shape and a rotation. Pieces are immutable and shared: the factory and rotating a piece return entries from the
+ * table, so neither allocates anything.
+ */
+public class GamePiece {
+
+  /**
+   * The total number of pieces in this game
+   */
+  public static final int PIECES = 15;
+
+  /**
+   * The number of distinct rotations of a piece
+   */
+  public static final int ROTATIONS = 4;
+
+  /**
+   * Every piece in every rotation, indexed by piece number and then rotation
+   */
+  private static final GamePiece[][] TABLE = new GamePiece[PIECES][ROTATIONS];
+
+  /**
+   * The rotations of each piece which fill different blocks, so symmetric pieces are only tried once
+   */
+  private static final GamePiece[][] DISTINCT = new GamePiece[PIECES][];
+
+  static {
+    for (int piece = 0; piece < PIECES; piece++) {
+      GamePiece unrotated = buildPiece(piece);
+      TABLE[piece][0] = unrotated;
+      int[][] blocks = unrotated.blocks;
+      for (int rotation = 1; rotation < ROTATIONS; rotation++) {
+        blocks = rotateBlocks(blocks);
+        TABLE[piece][rotation] = new GamePiece(unrotated.name, blocks, unrotated.value, piece, rotation);
+      }
+
+      //keep only the rotations whose blocks differ from every earlier rotation
+      GamePiece[] distinct = new GamePiece[ROTATIONS];
+      int count = 0;
+      for (GamePiece candidate : TABLE[piece]) {
+        boolean seen = false;
+        for (int i = 0; i < count; i++) {
+          seen |= Arrays.equals(distinct[i].rowMasks, candidate.rowMasks);
+        }
+        if (!seen) {
+          distinct[count++] = candidate;
+        }
+      }
+      DISTINCT[piece] = Arrays.copyOf(distinct, count);
+    }
+  }
+
+  /**
+   * The 2D grid representation of the shape of this piece, shared by every user of this piece and never modified
+   */
+  private final int[][] blocks;
+
+  /**
+   * The occupancy of each row of the piece, bit i of rowMasks[j] is set when blocks[i][j] is filled
+   */
+  private final long[] rowMasks;
+
+  /**
+   * The number of blocks this piece fills
+   */
+  private final int size;
+
+  /**
+   * The first and last column and row of the 3x3 grid which contain a block
+   */
+  private final int minCol, maxCol, minRow, maxRow;
+
+  /**
+   * The piece number of this piece
+   */
+  private final int shape;
+
+  /**
+   * How many times this piece has been rotated from its starting position
+   */
+  private final int rotation;
+
+  /**
+   * The value of this piece
+   */
+  private final int value;
+
+  /**
+   * The name of this piece
+   */
+  private final String name;
+
+  /**
+   * Create a new GamePiece of the specified piece number
+   *
+   * @param piece piece number
+   * @return the created GamePiece
+   */
+  public static GamePiece createPiece(int piece) {
+    if (piece < 0 || piece >= PIECES) {
+      //Not a valid piece number
+      throw new IndexOutOfBoundsException("No such piece: " + piece);
+    }
+    return TABLE[piece][0];
+  }
+
+  /**
+   * Build the unrotated piece of the specified piece number, used to fill the table
+   *
+   * @param piece piece number
+   * @return the built GamePiece
+   */
+  private static GamePiece buildPiece(int piece) {
+    switch (piece) {
+      //Line
+      case 0 -> {
+        int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {0, 0, 0}};
+        return new GamePiece("Line", blocks, 1, piece, 0);
+      }
+
+      //C
+      case 1 -> {
+        int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {1, 0, 1}};
+        return new GamePiece("C", blocks, 2, piece, 0);
+      }
+
+      //Plus
+      case 2 -> {
+        int[][] blocks = {{0, 1, 0}, {1, 1, 1}, {0, 1, 0}};
+        return new GamePiece("Plus", blocks, 3, piece, 0);
+      }
+
+      //Dot
+      case 3 -> {
+        int[][] blocks = {{0, 0, 0}, {0, 1, 0}, {0, 0, 0}};
+        return new GamePiece("Dot", blocks, 4, piece, 0);
+      }
+
+      //Square
+      case 4 -> {
+        int[][] blocks = {{1, 1, 0}, {1, 1, 0}, {0, 0, 0}};
+        return new GamePiece("Square", blocks, 5, piece, 0);
+      }
+
+      //L
+      case 5 -> {
+        int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {0, 0, 1}};
+        return new GamePiece("L", blocks, 6, piece, 0);
+      }
+
+      //J
+      case 6 -> {
+        int[][] blocks = {{0, 0, 1}, {1, 1, 1}, {0, 0, 0}};
+        return new GamePiece("J", blocks, 7, piece, 0);
+      }
+
+      //S
+      case 7 -> {
+        int[][] blocks = {{0, 0, 0}, {0, 1, 1}, {1, 1, 0}};
+        return new GamePiece("S", blocks, 8, piece, 0);
+      }
+
+      //Z
+      case 8 -> {
+        int[][] blocks = {{1, 1, 0}, {0, 1, 1}, {0, 0, 0}};
+        return new GamePiece("Z", blocks, 9, piece, 0);
+      }
+
+      //T
+      case 9 -> {
+        int[][] blocks = {{1, 0, 0}, {1, 1, 0}, {1, 0, 0}};
+        return new GamePiece("T", blocks, 10, piece, 0);
+      }
+
+      //X
+      case 10 -> {
+        int[][] blocks = {{1, 0, 1}, {0, 1, 0}, {1, 0, 1}};
+        return new GamePiece("X", blocks, 11, piece, 0);
+      }
+
+      //Corner
+      case 11 -> {
+        int[][] blocks = {{0, 0, 0}, {1, 1, 0}, {1, 0, 0}};
+        return new GamePiece("Corner", blocks, 12, piece, 0);
+      }
+
+      //Inverse Corner
+      case 12 -> {
+        int[][] blocks = {{1, 0, 0}, {1, 1, 0}, {0, 0, 0}};
+        return new GamePiece("Inverse Corner", blocks, 13, piece, 0);
+      }
+
+      //Diagonal
+      case 13 -> {
+        int[][] blocks = {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
+        return new GamePiece("Diagonal", blocks, 14, piece, 0);
+      }
+
+      //Double
+      case 14 -> {
+        int[][] blocks = {{0, 1, 0}, {0, 1, 0}, {0, 0, 0}};
+        return new GamePiece("Double", blocks, 15, piece, 0);
+      }
+    }
+
+    //Not a valid piece number
+    throw new IndexOutOfBoundsException("No such piece: " + piece);
+  }
+
+  /**
+   * Create a new GamePiece of the specified piece number and rotation
+   *
+   * @param piece    piece number
+   * @param rotation number of times to rotate
+   * @return the created GamePiece
+   */
+  public static GamePiece createPiece(int piece, int rotation) {
+    return createPiece(piece).rotated(rotation);
+  }
+
+  /**
+   * Get the piece with the given code
+   *
+   * @param code a code made by getCode
+   * @return the GamePiece
+   */
+  public static GamePiece fromCode(int code) {
+    return createPiece(code / ROTATIONS, code % ROTATIONS);
+  }
+
+  /**
+   * Create a new GamePiece with the given name, block makeup and value. Should not be called directly, only via the
+   * factory.
+   *
+   * @param name     name of the piece
+   * @param blocks   block makeup of the piece
+   * @param value    the value of this piece
+   * @param shape    the piece number
+   * @param rotation the number of times the blocks have been rotated
+   */
+  private GamePiece(String name, int[][] blocks, int value, int shape, int rotation) {
+    //相当于根据数据创建一个3*3的数组
+    this.name = name;
+    this.blocks = blocks;
+    this.value = value;
+    this.shape = shape;
+    this.rotation = rotation;
+    this.rowMasks = new long[blocks[0].length];
+
+    //Use the shape of the block to create a grid with either 0 (empty) or the value of this shape for each block.
+    int filled = 0;
+    int left = blocks.length, right = -1, top = blocks[0].length, bottom = -1;
+    for (int x = 0; x < blocks.length; x++) {
+      for (int y = 0; y < blocks[x].length; y++) {
+        if (blocks[x][y] == 0) continue;
+        blocks[x][y] = value;
+        rowMasks[y] |= 1L << x;
+        filled++;
+        left = Math.min(left, x);
+        right = Math.max(right, x);
+        top = Math.min(top, y);
+        bottom = Math.max(bottom, y);
+      }
+    }
+    this.size = filled;
+    this.minCol = left;
+    this.maxCol = right;
+    this.minRow = top;
+    this.maxRow = bottom;
+  }
+
+  /**
+   * Get the value of this piece
+   *
+   * @return piece value
+   */
+  public int getValue() {
+    return value;
+  }
+
+  /**
+   * Get the piece number of this piece
+   *
+   * @return piece number
+   */
+  public int getShape() {
+    return shape;
+  }
+
+  /**
+   * Get how many times this piece has been rotated from its starting position
+   *
+   * @return rotation, between 0 and 3
+   */
+  public int getRotation() {
+    return rotation;
+  }
+
+  /**
+   * Get a small number which identifies both the piece number and the rotation of this piece
+   *
+   * @return code, between 0 and PIECES * ROTATIONS - 1
+   */
+  public int getCode() {
+    return shape * ROTATIONS + rotation;
+  }
+
+  /**
+   * Get the number of blocks this piece fills
+   *
+   * @return filled blocks
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Get the block makeup of this piece. The array is shared by every user of this piece and must not be modified.
+   *
+   * @return 2D grid of the blocks representing the piece shape
+   */
+  public int[][] getBlocks() {
+    //返回一个二维数组
+    return blocks;
+  }
+
+  /**
+   * Get the occupancy of a row of this piece, bit i is set when the block at column i of the piece is filled
+   *
+   * @param row row of the piece, between 0 and 2
+   * @return row mask
+   */
+  public long getRowMask(int row) {
+    return rowMasks[row];
+  }
+
+  /**
+   * Get the first column of the 3x3 grid of this piece which contains a block
+   *
+   * @return first filled column
+   */
+  public int getMinCol() {
+    return minCol;
+  }
+
+  /**
+   * Get the last column of the 3x3 grid of this piece which contains a block
+   *
+   * @return last filled column
+   */
+  public int getMaxCol() {
+    return maxCol;
+  }
+
+  /**
+   * Get the first row of the 3x3 grid of this piece which contains a block
+   *
+   * @return first filled row
+   */
+  public int getMinRow() {
+    return minRow;
+  }
+
+  /**
+   * Get the last row of the 3x3 grid of this piece which contains a block
+   *
+   * @return last filled row
+   */
+  public int getMaxRow() {
+    return maxRow;
+  }
+
+  /**
+   * Get the rotations of this piece which fill different blocks, so a symmetric piece only has to be tried once per
+   * distinct shape. The array is shared and must not be modified.
+   *
+   * @return the distinct rotations of this piece
+   */
+  public GamePiece[] getDistinctRotations() {
+    return DISTINCT[shape];
+  }
+
+  /**
+   * Get this piece rotated the given number of rotations
+   *
+   * @param rotations number of rotations
+   * @return the rotated piece
+   */
+  public GamePiece rotated(int rotations) {
+    return TABLE[shape][Math.floorMod(rotation + rotations, ROTATIONS)];
+  }
+
+  /**
+   * Get this piece rotated exactly once
+   *
+   * @return the rotated piece
+   */
+  public GamePiece rotated() {
+    return rotated(1);
+  }
+
+  /**
+   * Rotate a 3x3 grid of blocks once, used to fill the table
+   *
+   * @param blocks the blocks to rotate
+   * @return a new grid with the rotated blocks
+   */
+  private static int[][] rotateBlocks(int[][] blocks) {
+    int[][] rotated = new int[blocks.length][blocks[0].length];
+    rotated[2][0] = blocks[0][0];
+    rotated[1][0] = blocks[0][1];
+    rotated[0][0] = blocks[0][2];
+
+    rotated[2][1] = blocks[1][0];
+    rotated[1][1] = blocks[1][1];
+    rotated[0][1] = blocks[1][2];
+
+    rotated[2][2] = blocks[2][0];
+    rotated[1][2] = blocks[2][1];
+    rotated[0][2] = blocks[2][2];
+
+    return rotated;
+  }
+
+
+  /**
+   * Return the string representation of this piece
+   *
+   * @return the name of this piece
+   */
+  public String toString() {
+    return this.name;
+  }
+
+
+}
@@ -0,0 +1,177 @@
+package uk.ac.soton.comp1206.core;
+
+/**
+ * Plays whole games in virtual time. The game timer and the player both run on a VirtualClock, so a timeout is just
+ * an event in the queue and a game which would take half an hour on screen finishes in well under a millisecond.
+ * <p>
+ * After each new piece the player is asked for a move once its think time has passed. If the timer runs out first
+ * the piece times out, exactly as it would for a real player who was too slow. Subclasses of GameEngine can be
+ * simulated to measure how changes to scoring or getTimerDelay affect the length of a game.
+ */
+public class GameSimulator {
+
+  /**
+   * the player making the moves
+   */
+  private final Player player;
+
+  /**
+   * how long the player takes to make each move, in milliseconds
+   */
+  private final long thinkTime;
+
+  /**
+   * reused between moves, so the player does not allocate
+   */
+  private final MoveList moves = new MoveList();
+
+  /**
+   * Create a simulator for a player who takes the given time to make each move
+   *
+   * @param player    the player making the moves
+   * @param thinkTime milliseconds the player takes to make each move
+   */
+  public GameSimulator(Player player, long thinkTime) {
+    this.player = player;
+    this.thinkTime = thinkTime;
+  }
+
+  /**
+   * Simulate a standard 5x5 game with pieces from a seeded generator
+   *
+   * @param seed seed for the pieces
+   * @return the outcome of the game
+   */
+  public SimulationResult run(long seed) {
+    return run(new GameEngine(5, 5, PieceGenerator.random(seed)));
+  }
+
+  /**
+   * Simulate a game until it is over. The engine must be new, it is started by the simulator and its clock and
+   * listener are replaced.
+   *
+   * @param engine the game to play
+   * @return the outcome of the game
+   */
+  public SimulationResult run(GameEngine engine) {
+    return run(engine, Long.MAX_VALUE);
+  }
+
+  /**
+   * Simulate a game until it is over or has run for the given time, whichever comes first. The engine must be new,
+   * it is started by the simulator and its clock and listener are replaced.
+   *
+   * @param engine    the game to play
+   * @param timeLimit longest game to play, in virtual milliseconds
+   * @return the outcome of the game
+   */
+  public SimulationResult run(GameEngine engine, long timeLimit) {
+    VirtualClock clock = new VirtualClock();
+    Tracker tracker = new Tracker(engine, clock);
+    engine.setClock(clock);
+    engine.setListener(tracker);
+    engine.start();
+
+    //each task is either the player's move or a timeout
+    long due;
+    while (!engine.isGameOver() && (due = clock.nextDue()) >= 0 && due <= timeLimit) {
+      clock.runNext();
+    }
+    engine.stop();
+    return new SimulationResult(clock.now(), engine.getScore(), engine.getLevel(),
+        tracker.placements, tracker.timeouts, tracker.lines);
+  }
+
+  /**
+   * Listens to a simulated game, counts what happens and schedules the player's next move
+   */
+  private class Tracker implements GameListener {
+
+    /**
+     * the game being played
+     */
+    private final GameEngine engine;
+
+    /**
+     * the clock of the game
+     */
+    private final VirtualClock clock;
+
+    /**
+     * the player's pending move, cancelled when the piece changes
+     */
+    private GameClock.ScheduledTask move;
+
+    /**
+     * number of pieces placed
+     */
+    private int placements;
+
+    /**
+     * number of pieces which ran out of time
+     */
+    private int timeouts;
+
+    /**
+     * number of rows and columns cleared
+     */
+    private int lines;
+
+    /**
+     * Create a tracker for a game
+     *
+     * @param engine the game being played
+     * @param clock  the clock of the game
+     */
+    private Tracker(GameEngine engine, VirtualClock clock) {
+      this.engine = engine;
+      this.clock = clock;
+    }
+
+    @Override
+    public void nextPiece(GamePiece currentPiece, GamePiece followingGamePiece) {
+      if (move != null) {
+        move.cancel();
+      }
+      move = clock.schedule(this::play, thinkTime);
+    }
+
+    @Override
+    public void linesCleared(long fullRows, long fullCols, int blocks) {
+      lines += Long.bitCount(fullRows) + Long.bitCount(fullCols);
+    }
+
+    @Override
+    public void lifeLost() {
+      timeouts++;
+    }
+
+    @Override
+    public void gameOver() {
+      //the last piece also ran out of time
+      timeouts++;
+    }
+
+    /**
+     * Ask the player for a move and make it
+     */
+    private void play() {
+      move = null;
+      int chosen = player.chooseMove(engine, moves);
+      if (chosen < 0) {
+        return;
+      }
+      if (MoveList.isSwap(chosen)) {
+        engine.swapCurrentPiece();
+      }
+      GamePiece piece = engine.getCurrentPiece();
+      engine.rotateCurrentPiece(MoveList.unpackRotation(chosen) - piece.getRotation());
+      if (engine.place(MoveList.unpackX(chosen), MoveList.unpackY(chosen))) {
+        placements++;
+      } else {
+        //an illegal move leaves the piece to time out
+        engine.setCurrentPiece(piece);
+      }
+    }
+  }
+}
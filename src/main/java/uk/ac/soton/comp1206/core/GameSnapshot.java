@@ -0,0 +1,193 @@
+package uk.ac.soton.comp1206.core;
+
+/**
+ * An immutable picture of a game, published by a GameActor for the UI to display. A slow UI skips intermediate
+ * snapshots, the events in between are delivered by the GameActor listener.
+ */
+public final class GameSnapshot {
+
+  /**
+   * Number of columns
+   */
+  private final int cols;
+
+  /**
+   * Number of rows
+   */
+  private final int rows;
+
+  /**
+   * the board
+   */
+  private final BoardSnapshot board;
+
+  /**
+   * the current piece
+   */
+  private final GamePiece currentPiece;
+
+  /**
+   * the following piece
+   */
+  private final GamePiece followingPiece;
+
+  /**
+   * current score
+   */
+  private final int score;
+
+  /**
+   * current level
+   */
+  private final int level;
+
+  /**
+   * current lives
+   */
+  private final int lives;
+
+  /**
+   * current multiplier
+   */
+  private final int multiplier;
+
+  /**
+   * true once the game is over
+   */
+  private final boolean gameOver;
+
+  /**
+   * the number of commands the actor had processed when this snapshot was taken
+   */
+  private final long commands;
+
+  /**
+   * Create a new snapshot
+   *
+   * @param engine   the engine to take the state from, on the thread which owns it
+   * @param commands the number of commands processed so far
+   */
+  GameSnapshot(GameEngine engine, long commands) {
+    this.cols = engine.getCols();
+    this.rows = engine.getRows();
+    this.board = engine.getBoard().snapshot();
+    this.currentPiece = engine.getCurrentPiece();
+    this.followingPiece = engine.getFollowingPiece();
+    this.score = engine.getScore();
+    this.level = engine.getLevel();
+    this.lives = engine.getLives();
+    this.multiplier = engine.getMultiplier();
+    this.gameOver = engine.isGameOver();
+    this.commands = commands;
+  }
+
+  /**
+   * Get the number of columns
+   *
+   * @return number of columns
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Get the number of rows
+   *
+   * @return number of rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the value of a block
+   *
+   * @param x column
+   * @param y row
+   * @return the value
+   */
+  public int get(int x, int y) {
+    return board.get(x, y);
+  }
+
+  /**
+   * Get the board
+   *
+   * @return snapshot of the board
+   */
+  public BoardSnapshot getBoard() {
+    return board;
+  }
+
+  /**
+   * get the current piece
+   *
+   * @return current piece
+   */
+  public GamePiece getCurrentPiece() {
+    return currentPiece;
+  }
+
+  /**
+   * get the following piece
+   *
+   * @return following piece
+   */
+  public GamePiece getFollowingPiece() {
+    return followingPiece;
+  }
+
+  /**
+   * get the score
+   *
+   * @return score
+   */
+  public int getScore() {
+    return score;
+  }
+
+  /**
+   * get the level
+   *
+   * @return level
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * get the lives
+   *
+   * @return lives
+   */
+  public int getLives() {
+    return lives;
+  }
+
+  /**
+   * get the multiplier
+   *
+   * @return multiplier
+   */
+  public int getMultiplier() {
+    return multiplier;
+  }
+
+  /**
+   * check if the game is over
+   *
+   * @return true once the game is over
+   */
+  public boolean isGameOver() {
+    return gameOver;
+  }
+
+  /**
+   * get the number of commands the actor had processed when this snapshot was taken
+   *
+   * @return processed commands
+   */
+  public long getCommands() {
+    return commands;
+  }
+}
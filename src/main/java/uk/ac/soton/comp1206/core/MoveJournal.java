@@ -0,0 +1,348 @@
+package uk.ac.soton.comp1206.core;
+
+import java.util.Arrays;
+
+/**
+ * The undo and redo history of a GameEngine, recorded as one compact delta per move.
+ * <p>
+ * Each placement or timeout takes five longs: the kind of move, the piece and where it went, the following piece,
+ * the masks of the rows and columns it cleared, the score, level, lives and multiplier before it, and where its
+ * cleared blocks start in a shared pool. The pool keeps the value of every cleared block, packed four bits each, so
+ * undoing a move only touches the blocks of the piece and the lines it cleared. The board is never copied.
+ * <p>
+ * Moves after the cursor can be redone. Recording a new move forgets them.
+ */
+public class MoveJournal {
+
+  /**
+   * a piece was placed
+   */
+  public static final int PLACEMENT = 0;
+
+  /**
+   * the timer ran out
+   */
+  public static final int TIMEOUT = 1;
+
+  /**
+   * longs used by each move
+   */
+  private static final int STRIDE = 5;
+
+  /**
+   * cleared blocks packed into each long of the pool
+   */
+  private static final int PER_WORD = 16;
+
+  /**
+   * Number of columns of the board
+   */
+  private final int cols;
+
+  /**
+   * Number of rows of the board
+   */
+  private final int rows;
+
+  /**
+   * a row with every column set
+   */
+  private final long fullRow;
+
+  /**
+   * the moves, STRIDE longs each
+   */
+  private long[] moves = new long[STRIDE * 64];
+
+  /**
+   * the values of the cleared blocks of every move, four bits each
+   */
+  private long[] pool = new long[64];
+
+  /**
+   * the number of moves recorded, including undone ones which can be redone
+   */
+  private int size;
+
+  /**
+   * the number of moves which have not been undone
+   */
+  private int cursor;
+
+  /**
+   * Create an empty journal for a board of the given size
+   *
+   * @param cols number of columns
+   * @param rows number of rows
+   */
+  public MoveJournal(int cols, int rows) {
+    this.cols = cols;
+    this.rows = rows;
+    this.fullRow = cols == Long.SIZE ? -1L : (1L << cols) - 1;
+  }
+
+  /**
+   * Record a move at the cursor, before it changes the game
+   *
+   * @param kind           PLACEMENT or TIMEOUT
+   * @param piece          the current piece, which is placed or discarded
+   * @param followingPiece the following piece
+   * @param x              column the piece is placed at, 0 for a timeout
+   * @param y              row the piece is placed at, 0 for a timeout
+   * @param score          score before the move
+   * @param level          level before the move
+   * @param lives          lives before the move
+   * @param multiplier     multiplier before the move
+   * @param redo           true if the move is being redone, so later moves are kept
+   */
+  void record(int kind, GamePiece piece, GamePiece followingPiece, int x, int y, int score, int level, int lives,
+      int multiplier, boolean redo) {
+    int base = cursor * STRIDE;
+    if (base + STRIDE > moves.length) {
+      moves = Arrays.copyOf(moves, moves.length * 2);
+    }
+    moves[base] = kind | (long) piece.getCode() << 8 | (long) followingPiece.getCode() << 16
+        | (long) (x + 1 & 0xFF) << 24 | (long) (y + 1 & 0xFF) << 32;
+    moves[base + 1] = 0;
+    moves[base + 2] = 0;
+    moves[base + 3] = (score & 0xFFFFFFFFL) | (long) (lives & 0xFF) << 32 | (long) (multiplier & 0xFFF) << 40
+        | (long) (level & 0xFFF) << 52;
+    moves[base + 4] = cursor == 0 ? 0 : poolEnd(cursor - 1);
+    cursor++;
+    if (!redo || cursor > size) {
+      size = cursor;
+    }
+  }
+
+  /**
+   * Record the lines the latest move cleared, before they are cleared
+   *
+   * @param board    the board
+   * @param fullRows mask of the rows being cleared
+   * @param fullCols mask of the columns being cleared
+   */
+  void cleared(Board board, long fullRows, long fullCols) {
+    int base = (cursor - 1) * STRIDE;
+    moves[base + 1] = fullRows;
+    moves[base + 2] = fullCols;
+    int index = (int) moves[base + 4];
+    int end = index + countBlocks(fullRows, fullCols);
+    if (PER_WORD * pool.length < end) {
+      pool = Arrays.copyOf(pool, Math.max(pool.length * 2, end / PER_WORD + 1));
+    }
+    long colMask = fullCols & fullRow;
+    for (int y = 0; y < rows; y++) {
+      long row = (fullRows >>> y & 1L) != 0 ? fullRow : colMask;
+      for (long bits = row; bits != 0; bits &= bits - 1) {
+        BoardSnapshot.pack(pool, index++, board.get(Long.numberOfTrailingZeros(bits), y));
+      }
+    }
+  }
+
+  /**
+   * Put back the blocks the move at the given index cleared
+   *
+   * @param move  index of the move
+   * @param board the board
+   */
+  void restoreCleared(int move, Board board) {
+    int base = move * STRIDE;
+    long fullRows = moves[base + 1];
+    long fullCols = moves[base + 2];
+    int index = (int) moves[base + 4];
+    long colMask = fullCols & fullRow;
+    for (int y = 0; y < rows; y++) {
+      long row = (fullRows >>> y & 1L) != 0 ? fullRow : colMask;
+      for (long bits = row; bits != 0; bits &= bits - 1) {
+        board.set(Long.numberOfTrailingZeros(bits), y, BoardSnapshot.unpack(pool, index++));
+      }
+    }
+  }
+
+  /**
+   * check if there is a move to undo
+   *
+   * @return true if a move can be undone
+   */
+  public boolean canUndo() {
+    return cursor > 0;
+  }
+
+  /**
+   * check if there is a move to redo
+   *
+   * @return true if a move can be redone
+   */
+  public boolean canRedo() {
+    return cursor < size;
+  }
+
+  /**
+   * Move the cursor back over the latest move
+   *
+   * @return index of the move to undo
+   */
+  int undo() {
+    return --cursor;
+  }
+
+  /**
+   * Get the index of the move to redo, which stays after the cursor until it is recorded again
+   *
+   * @return index of the move to redo
+   */
+  int redoIndex() {
+    return cursor;
+  }
+
+  /**
+   * Forget every move
+   */
+  public void clear() {
+    size = 0;
+    cursor = 0;
+  }
+
+  /**
+   * Get the number of moves which can be undone
+   *
+   * @return number of moves
+   */
+  public int size() {
+    return cursor;
+  }
+
+  /**
+   * Get the kind of a move
+   *
+   * @param move index of the move
+   * @return PLACEMENT or TIMEOUT
+   */
+  public int getKind(int move) {
+    return (int) (moves[move * STRIDE] & 0xFF);
+  }
+
+  /**
+   * Get the piece which was placed or discarded
+   *
+   * @param move index of the move
+   * @return the piece
+   */
+  public GamePiece getPiece(int move) {
+    return GamePiece.fromCode((int) (moves[move * STRIDE] >>> 8 & 0xFF));
+  }
+
+  /**
+   * Get the following piece before the move
+   *
+   * @param move index of the move
+   * @return the piece
+   */
+  public GamePiece getFollowingPiece(int move) {
+    return GamePiece.fromCode((int) (moves[move * STRIDE] >>> 16 & 0xFF));
+  }
+
+  /**
+   * Get the column the piece was placed at
+   *
+   * @param move index of the move
+   * @return column
+   */
+  public int getX(int move) {
+    return (int) (moves[move * STRIDE] >>> 24 & 0xFF) - 1;
+  }
+
+  /**
+   * Get the row the piece was placed at
+   *
+   * @param move index of the move
+   * @return row
+   */
+  public int getY(int move) {
+    return (int) (moves[move * STRIDE] >>> 32 & 0xFF) - 1;
+  }
+
+  /**
+   * Get the rows the move cleared
+   *
+   * @param move index of the move
+   * @return mask of the cleared rows
+   */
+  public long getClearedRows(int move) {
+    return moves[move * STRIDE + 1];
+  }
+
+  /**
+   * Get the columns the move cleared
+   *
+   * @param move index of the move
+   * @return mask of the cleared columns
+   */
+  public long getClearedCols(int move) {
+    return moves[move * STRIDE + 2];
+  }
+
+  /**
+   * Get the score before the move
+   *
+   * @param move index of the move
+   * @return score
+   */
+  public int getScore(int move) {
+    return (int) moves[move * STRIDE + 3];
+  }
+
+  /**
+   * Get the lives before the move
+   *
+   * @param move index of the move
+   * @return lives
+   */
+  public int getLives(int move) {
+    return (int) (moves[move * STRIDE + 3] >>> 32 & 0xFF);
+  }
+
+  /**
+   * Get the multiplier before the move
+   *
+   * @param move index of the move
+   * @return multiplier
+   */
+  public int getMultiplier(int move) {
+    return (int) (moves[move * STRIDE + 3] >>> 40 & 0xFFF);
+  }
+
+  /**
+   * Get the level before the move
+   *
+   * @param move index of the move
+   * @return level
+   */
+  public int getLevel(int move) {
+    return (int) (moves[move * STRIDE + 3] >>> 52 & 0xFFF);
+  }
+
+  /**
+   * Get where the cleared blocks of the next move would start in the pool
+   *
+   * @param move index of the move before
+   * @return index in the pool
+   */
+  private int poolEnd(int move) {
+    int base = move * STRIDE;
+    return (int) moves[base + 4] + countBlocks(moves[base + 1], moves[base + 2]);
+  }
+
+  /**
+   * Count the blocks in some rows and columns, counting crossings once
+   *
+   * @param fullRows mask of rows
+   * @param fullCols mask of columns
+   * @return number of blocks
+   */
+  private int countBlocks(long fullRows, long fullCols) {
+    int r = Long.bitCount(fullRows);
+    int c = Long.bitCount(fullCols);
+    return r * cols + c * rows - r * c;
+  }
+}
@@ -0,0 +1,178 @@
+package uk.ac.soton.comp1206.core;
+
+import java.util.Arrays;
+
+/**
+ * A reusable list of piece placements. Each move is packed into a single int holding the column and row of the centre
+ * of the piece and its rotation, so filling the list again every turn allocates nothing once it has grown to size.
+ * <p>
+ * The rotation of a move is the absolute rotation of the piece, so GamePiece.createPiece(shape, rotation) gives the
+ * piece to place.
+ */
+public class MoveList {
+
+  /**
+   * set on a packed move when the current and following pieces should be swapped before it is made
+   */
+  public static final int SWAP = 1 << 24;
+
+  /**
+   * the packed moves
+   */
+  private int[] moves;
+
+  /**
+   * the number of moves in the list
+   */
+  private int size;
+
+  /**
+   * Create an empty move list
+   */
+  public MoveList() {
+    this(64);
+  }
+
+  /**
+   * Create an empty move list with room for the given number of moves
+   *
+   * @param capacity number of moves before the list has to grow
+   */
+  public MoveList(int capacity) {
+    moves = new int[Math.max(capacity, 1)];
+  }
+
+  /**
+   * Pack a move into a single int
+   *
+   * @param x        column of the centre of the piece
+   * @param y        row of the centre of the piece
+   * @param rotation rotation of the piece
+   * @return the packed move
+   */
+  public static int pack(int x, int y, int rotation) {
+    return rotation << 16 | y << 8 | x;
+  }
+
+  /**
+   * Get the column of a packed move
+   *
+   * @param move packed move
+   * @return column of the centre of the piece
+   */
+  public static int unpackX(int move) {
+    return move & 0xFF;
+  }
+
+  /**
+   * Get the row of a packed move
+   *
+   * @param move packed move
+   * @return row of the centre of the piece
+   */
+  public static int unpackY(int move) {
+    return (move >>> 8) & 0xFF;
+  }
+
+  /**
+   * Get the rotation of a packed move
+   *
+   * @param move packed move
+   * @return rotation of the piece
+   */
+  public static int unpackRotation(int move) {
+    return (move >>> 16) & 0xFF;
+  }
+
+  /**
+   * check if a packed move swaps the pieces first
+   *
+   * @param move packed move
+   * @return true if the SWAP flag is set
+   */
+  public static boolean isSwap(int move) {
+    return (move & SWAP) != 0;
+  }
+
+  /**
+   * Add a move to the end of the list
+   *
+   * @param x        column of the centre of the piece
+   * @param y        row of the centre of the piece
+   * @param rotation rotation of the piece
+   */
+  public void add(int x, int y, int rotation) {
+    if (size == moves.length) {
+      moves = Arrays.copyOf(moves, size * 2);
+    }
+    moves[size++] = pack(x, y, rotation);
+  }
+
+  /**
+   * Empty the list, keeping its storage
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Get the number of moves in the list
+   *
+   * @return number of moves
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * check if the list has no moves
+   *
+   * @return true if empty
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Get a packed move
+   *
+   * @param index index of the move
+   * @return packed move
+   */
+  public int get(int index) {
+    if (index >= size) {
+      throw new IndexOutOfBoundsException("No such move: " + index);
+    }
+    return moves[index];
+  }
+
+  /**
+   * Get the column of a move
+   *
+   * @param index index of the move
+   * @return column of the centre of the piece
+   */
+  public int getX(int index) {
+    return unpackX(get(index));
+  }
+
+  /**
+   * Get the row of a move
+   *
+   * @param index index of the move
+   * @return row of the centre of the piece
+   */
+  public int getY(int index) {
+    return unpackY(get(index));
+  }
+
+  /**
+   * Get the rotation of a move
+   *
+   * @param index index of the move
+   * @return rotation of the piece
+   */
+  public int getRotation(int index) {
+    return unpackRotation(get(index));
+  }
+}
@@ -0,0 +1,51 @@
+package uk.ac.soton.comp1206.core;
+
+import java.util.SplittableRandom;
+
+/**
+ * A PieceGenerator decides which piece a game is dealt next.
+ * <p>
+ * Generators are not thread safe and do no locking: each game should own its own generator. To run many games in
+ * parallel, give each game a generator of its own seed, as Tournament and WeightTuner do with seed + i, so any one
+ * game can be replayed alone. Splitting one generator once per game also gives independent streams which are fully
+ * determined by the original seed, but a game can then only be replayed by splitting again in the same order. Only
+ * the built in generators can be split, see SplittablePieceGenerator.
+ */
+public interface PieceGenerator {
+
+  /**
+   * Get the next piece to deal
+   *
+   * @return the next piece
+   */
+  GamePiece next();
+
+  /**
+   * Create a generator where every piece is equally likely each time, seeded from the clock
+   *
+   * @return a random generator
+   */
+  static SplittablePieceGenerator random() {
+    return new RandomPieceGenerator(new SplittableRandom());
+  }
+
+  /**
+   * Create a generator where every piece is equally likely each time
+   *
+   * @param seed the seed, the same seed always deals the same pieces
+   * @return a random generator
+   */
+  static SplittablePieceGenerator random(long seed) {
+    return new RandomPieceGenerator(new SplittableRandom(seed));
+  }
+
+  /**
+   * Create a generator which deals every piece once in a shuffled order before dealing any piece again
+   *
+   * @param seed the seed, the same seed always deals the same pieces
+   * @return a bag generator
+   */
+  static SplittablePieceGenerator bag(long seed) {
+    return new BagPieceGenerator(new SplittableRandom(seed));
+  }
+}
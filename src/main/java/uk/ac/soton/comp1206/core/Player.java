@@ -0,0 +1,40 @@
+package uk.ac.soton.comp1206.core;
+
+/**
+ * A Player decides where to place the current piece of a simulated game.
+ */
+public interface Player {
+
+  /**
+   * Choose a move for the current piece of the engine
+   *
+   * @param engine the game being played, which should not be changed
+   * @param moves  a reusable list the player may fill while deciding
+   * @return a move packed with MoveList.pack, with MoveList.SWAP set to swap the pieces first, or -1 to let the
+   *     timer run out
+   */
+  int chooseMove(GameEngine engine, MoveList moves);
+
+  /**
+   * A player which never places anything, so every piece times out
+   *
+   * @return idle player
+   */
+  static Player idle() {
+    return (engine, moves) -> -1;
+  }
+
+  /**
+   * A player which places the current piece at its first legal move
+   *
+   * @return greedy player
+   */
+  static Player firstLegalMove() {
+    return (engine, moves) -> {
+      if (engine.getBoard().legalMoves(engine.getCurrentPiece(), moves) == 0) {
+        return -1;
+      }
+      return moves.get(0);
+    };
+  }
+}
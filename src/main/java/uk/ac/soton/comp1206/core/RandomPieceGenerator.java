@@ -0,0 +1,43 @@
+package uk.ac.soton.comp1206.core;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deals pieces uniformly at random from a SplittableRandom, so dealing a piece allocates nothing and needs no locking
+ */
+public class RandomPieceGenerator implements SplittablePieceGenerator {
+
+  /**
+   * the source of random numbers
+   */
+  private final SplittableRandom random;
+
+  /**
+   * Create a generator which draws from the given random source
+   *
+   * @param random random source, owned by this generator from now on
+   */
+  public RandomPieceGenerator(SplittableRandom random) {
+    this.random = random;
+  }
+
+  /**
+   * Get the next piece to deal
+   *
+   * @return a random piece
+   */
+  @Override
+  public GamePiece next() {
+    return GamePiece.createPiece(random.nextInt(GamePiece.PIECES));
+  }
+
+  /**
+   * Create a new generator with an independent stream of pieces
+   *
+   * @return the split generator
+   */
+  @Override
+  public SplittablePieceGenerator split() {
+    return new RandomPieceGenerator(random.split());
+  }
+}
@@ -0,0 +1,58 @@
+package uk.ac.soton.comp1206.core;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The clock which runs on wall clock time. There is only one, and every game schedules its timer on its single
+ * daemon thread, instead of each game starting an executor of its own.
+ */
+public final class RealTimeClock implements GameClock {
+
+  /**
+   * the shared instance
+   */
+  static final RealTimeClock INSTANCE = new RealTimeClock();
+
+  /**
+   * the scheduler shared by every game
+   */
+  private final ScheduledThreadPoolExecutor scheduler;
+
+  /**
+   * Create the shared clock and its scheduler thread
+   */
+  private RealTimeClock() {
+    scheduler = new ScheduledThreadPoolExecutor(1, task -> {
+      Thread thread = new Thread(task, "game-clock");
+      thread.setDaemon(true);
+      return thread;
+    });
+    //cancelled timers are removed straight away rather than waiting for their delay
+    scheduler.setRemoveOnCancelPolicy(true);
+  }
+
+  /**
+   * Get the current time of this clock
+   *
+   * @return time in milliseconds
+   */
+  @Override
+  public long now() {
+    return System.nanoTime() / 1_000_000;
+  }
+
+  /**
+   * Run a task once after a delay on the shared scheduler thread
+   *
+   * @param task  the task to run
+   * @param delay delay in milliseconds
+   * @return a handle which can cancel the task
+   */
+  @Override
+  public ScheduledTask schedule(Runnable task, long delay) {
+    ScheduledFuture<?> future = scheduler.schedule(task, delay, TimeUnit.MILLISECONDS);
+    return () -> future.cancel(false);
+  }
+}
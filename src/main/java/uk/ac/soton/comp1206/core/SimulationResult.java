@@ -0,0 +1,116 @@
+package uk.ac.soton.comp1206.core;
+
+/**
+ * The outcome of one simulated game
+ */
+public final class SimulationResult {
+
+  /**
+   * length of the game in virtual milliseconds
+   */
+  private final long duration;
+
+  /**
+   * final score
+   */
+  private final int score;
+
+  /**
+   * final level
+   */
+  private final int level;
+
+  /**
+   * number of pieces placed
+   */
+  private final int placements;
+
+  /**
+   * number of pieces which ran out of time
+   */
+  private final int timeouts;
+
+  /**
+   * number of rows and columns cleared
+   */
+  private final int lines;
+
+  /**
+   * Create a new result
+   *
+   * @param duration   length of the game in virtual milliseconds
+   * @param score      final score
+   * @param level      final level
+   * @param placements number of pieces placed
+   * @param timeouts   number of pieces which ran out of time
+   * @param lines      number of rows and columns cleared
+   */
+  public SimulationResult(long duration, int score, int level, int placements, int timeouts, int lines) {
+    this.duration = duration;
+    this.score = score;
+    this.level = level;
+    this.placements = placements;
+    this.timeouts = timeouts;
+    this.lines = lines;
+  }
+
+  /**
+   * get the length of the game
+   *
+   * @return duration in virtual milliseconds
+   */
+  public long getDuration() {
+    return duration;
+  }
+
+  /**
+   * get the final score
+   *
+   * @return score
+   */
+  public int getScore() {
+    return score;
+  }
+
+  /**
+   * get the final level
+   *
+   * @return level
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * get the number of pieces placed
+   *
+   * @return placements
+   */
+  public int getPlacements() {
+    return placements;
+  }
+
+  /**
+   * get the number of pieces which ran out of time
+   *
+   * @return timeouts
+   */
+  public int getTimeouts() {
+    return timeouts;
+  }
+
+  /**
+   * get the number of rows and columns cleared
+   *
+   * @return lines
+   */
+  public int getLines() {
+    return lines;
+  }
+
+  @Override
+  public String toString() {
+    return "SimulationResult{duration=" + duration + ", score=" + score + ", level=" + level
+        + ", placements=" + placements + ", timeouts=" + timeouts + ", lines=" + lines + "}";
+  }
+}
@@ -0,0 +1,15 @@
+package uk.ac.soton.comp1206.core;
+
+/**
+ * A PieceGenerator which can be split into independent streams of pieces. This is kept out of PieceGenerator so a
+ * lambda or method reference can still be a generator, without a split method which fails when it is called.
+ */
+public interface SplittablePieceGenerator extends PieceGenerator {
+
+  /**
+   * Create a new generator with an independent stream of pieces, derived from this one
+   *
+   * @return the split generator
+   */
+  SplittablePieceGenerator split();
+}
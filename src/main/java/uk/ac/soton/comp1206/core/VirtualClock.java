@@ -0,0 +1,187 @@
+package uk.ac.soton.comp1206.core;
+
+import java.util.PriorityQueue;
+
+/**
+ * A clock which only moves when it is told to. Scheduled tasks run on the thread which advances the clock, in the
+ * order they are due, so a game driven by a VirtualClock is deterministic and can run as fast as the CPU allows.
+ * <p>
+ * A VirtualClock is not thread safe and should belong to a single game or simulation.
+ */
+public class VirtualClock implements GameClock {
+
+  /**
+   * the tasks waiting to run, earliest first
+   */
+  private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+
+  /**
+   * the current time in milliseconds
+   */
+  private long now;
+
+  /**
+   * counts scheduled tasks, so tasks due at the same time run in the order they were scheduled
+   */
+  private long sequence;
+
+  /**
+   * Create a virtual clock starting at time 0
+   */
+  public VirtualClock() {
+    this(0);
+  }
+
+  /**
+   * Create a virtual clock starting at the given time
+   *
+   * @param start start time in milliseconds
+   */
+  public VirtualClock(long start) {
+    this.now = start;
+  }
+
+  /**
+   * Get the current time of this clock
+   *
+   * @return time in milliseconds
+   */
+  @Override
+  public long now() {
+    return now;
+  }
+
+  /**
+   * Schedule a task to run once the clock has been advanced past the delay
+   *
+   * @param task  the task to run
+   * @param delay delay in milliseconds
+   * @return a handle which can cancel the task
+   */
+  @Override
+  public ScheduledTask schedule(Runnable task, long delay) {
+    Entry entry = new Entry(now + Math.max(delay, 0), sequence++, task);
+    queue.add(entry);
+    return entry;
+  }
+
+  /**
+   * Move the clock forward, running every task which becomes due on the way at its due time
+   *
+   * @param millis how far to move the clock
+   */
+  public void advance(long millis) {
+    advanceTo(now + millis);
+  }
+
+  /**
+   * Move the clock forward to the given time, running every task which becomes due on the way at its due time
+   *
+   * @param time the time to move to
+   */
+  public void advanceTo(long time) {
+    Entry entry;
+    while ((entry = nextEntry()) != null && entry.due <= time) {
+      queue.poll();
+      now = entry.due;
+      entry.task.run();
+    }
+    now = Math.max(now, time);
+  }
+
+  /**
+   * Jump straight to the next task and run it, along with anything else due at the same time
+   *
+   * @return false if there was nothing scheduled
+   */
+  public boolean runNext() {
+    Entry entry = nextEntry();
+    if (entry == null) {
+      return false;
+    }
+    advanceTo(entry.due);
+    return true;
+  }
+
+  /**
+   * Get when the next task is due
+   *
+   * @return due time in milliseconds, or -1 if nothing is scheduled
+   */
+  public long nextDue() {
+    Entry entry = nextEntry();
+    return entry == null ? -1 : entry.due;
+  }
+
+  /**
+   * check if any task is waiting to run
+   *
+   * @return true if a task is scheduled
+   */
+  public boolean hasPending() {
+    return nextEntry() != null;
+  }
+
+  /**
+   * Get the earliest task which has not been cancelled, dropping cancelled ones on the way
+   *
+   * @return the next entry, or null
+   */
+  private Entry nextEntry() {
+    Entry entry;
+    while ((entry = queue.peek()) != null && entry.cancelled) {
+      queue.poll();
+    }
+    return entry;
+  }
+
+  /**
+   * A task waiting on the virtual clock
+   */
+  private static class Entry implements ScheduledTask, Comparable<Entry> {
+
+    /**
+     * when the task is due
+     */
+    private final long due;
+
+    /**
+     * order the task was scheduled in
+     */
+    private final long order;
+
+    /**
+     * the task itself
+     */
+    private final Runnable task;
+
+    /**
+     * true once the task has been cancelled
+     */
+    private boolean cancelled;
+
+    /**
+     * Create a new entry
+     *
+     * @param due   when the task is due
+     * @param order order the task was scheduled in
+     * @param task  the task itself
+     */
+    private Entry(long due, long order, Runnable task) {
+      this.due = due;
+      this.order = order;
+      this.task = task;
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+    }
+
+    @Override
+    public int compareTo(Entry other) {
+      int byDue = Long.compare(due, other.due);
+      return byDue != 0 ? byDue : Long.compare(order, other.order);
+    }
+  }
+}
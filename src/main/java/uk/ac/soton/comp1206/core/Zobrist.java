@@ -0,0 +1,77 @@
+package uk.ac.soton.comp1206.core;
+
+/**
+ * The random keys of the Zobrist hash of a game state. The hash of a state is the exclusive or of the key of every
+ * filled block and the keys of the current and following pieces, so it can be updated in constant time whenever a
+ * block changes, and two different states only share a hash by chance.
+ * <p>
+ * The keys are not stored in a table. Each one is made by mixing its index with a fixed seed, which gives the same
+ * keys on every run and every machine without a table large enough for a 64x64 board.
+ */
+public final class Zobrist {
+
+  /**
+   * fixed seed, so hashes can be saved and compared between runs
+   */
+  private static final long SEED = 0x5DEECE66DL;
+
+  /**
+   * keys of the current piece follow the keys of the blocks
+   */
+  private static final long CURRENT_PIECE = 1L << 20;
+
+  /**
+   * keys of the following piece follow the keys of the current piece
+   */
+  private static final long FOLLOWING_PIECE = 1L << 21;
+
+  /**
+   * no instances
+   */
+  private Zobrist() {
+  }
+
+  /**
+   * Get the key of a block holding a value, empty blocks have no key
+   *
+   * @param index index of the block, y * cols + x
+   * @param value value of the block
+   * @return the key
+   */
+  public static long block(int index, int value) {
+    return value == 0 ? 0 : mix(((long) index << 4) + value);
+  }
+
+  /**
+   * Get the key of the current piece
+   *
+   * @param piece the piece, may be null
+   * @return the key
+   */
+  public static long currentPiece(GamePiece piece) {
+    return piece == null ? 0 : mix(CURRENT_PIECE + piece.getCode());
+  }
+
+  /**
+   * Get the key of the following piece
+   *
+   * @param piece the piece, may be null
+   * @return the key
+   */
+  public static long followingPiece(GamePiece piece) {
+    return piece == null ? 0 : mix(FOLLOWING_PIECE + piece.getCode());
+  }
+
+  /**
+   * Turn an index into a random looking key, the finaliser of SplitMix64
+   *
+   * @param index index of the key
+   * @return the key
+   */
+  private static long mix(long index) {
+    long z = SEED + index * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
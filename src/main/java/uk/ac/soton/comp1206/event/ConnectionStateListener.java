@@ -0,0 +1,16 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.network.ConnectionState;
+
+/**
+ * The Connection State Listener is told whenever the Communicator connects, loses its connection or is closed.
+ */
+public interface ConnectionStateListener {
+
+  /**
+   * Handle a change of connection state, called on the communicator's thread
+   *
+   * @param state the new state
+   */
+  public void stateChanged(ConnectionState state);
+}
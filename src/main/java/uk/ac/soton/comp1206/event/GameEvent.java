@@ -0,0 +1,135 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.core.GamePiece;
+
+/**
+ * The types of event published on a GameEventBus, and how each one is merged when several happen within one pulse.
+ * <p>
+ * Every event carries two long values, so publishing never allocates. Pieces are encoded with piece and decoded with
+ * toPiece.
+ */
+public final class GameEvent {
+
+  /**
+   * new pieces were dealt: a is the current piece, b is the following piece
+   */
+  public static final int NEXT_PIECE = 0;
+
+  /**
+   * a piece was placed: a is the piece, b is the column in the low 32 bits and the row in the high 32 bits
+   */
+  public static final int PIECE_PLACED = 1;
+
+  /**
+   * lines were cleared: a is the mask of cleared rows, b is the mask of cleared columns
+   */
+  public static final int LINES_CLEARED = 2;
+
+  /**
+   * the score went up: a is the lines cleared, b is the blocks cleared
+   */
+  public static final int SCORED = 3;
+
+  /**
+   * a life was lost: a is the number of lives lost
+   */
+  public static final int LIFE_LOST = 4;
+
+  /**
+   * the current and following pieces were swapped: a is the number of swaps
+   */
+  public static final int PIECES_SWAPPED = 5;
+
+  /**
+   * the stats changed: a is the score, b is the level, lives and multiplier packed 16 bits each from the lowest bits
+   */
+  public static final int STATS_CHANGED = 6;
+
+  /**
+   * the timer started: a is the delay in milliseconds
+   */
+  public static final int LOOP_STARTED = 7;
+
+  /**
+   * the game is over: a is the final score
+   */
+  public static final int GAME_OVER = 8;
+
+  /**
+   * the number of event types
+   */
+  public static final int TYPES = 9;
+
+  /**
+   * merged events keep only the latest values
+   */
+  public static final int MERGE_LATEST = 0;
+
+  /**
+   * merged events combine their values with a bitwise or
+   */
+  public static final int MERGE_OR = 1;
+
+  /**
+   * merged events add their values together
+   */
+  public static final int MERGE_SUM = 2;
+
+  /**
+   * how each type of event is merged
+   */
+  private static final int[] MERGE = {
+      MERGE_LATEST, MERGE_LATEST, MERGE_OR, MERGE_SUM, MERGE_SUM, MERGE_SUM, MERGE_LATEST, MERGE_LATEST, MERGE_LATEST
+  };
+
+  /**
+   * no instances
+   */
+  private GameEvent() {
+  }
+
+  /**
+   * Get how a type of event is merged
+   *
+   * @param type event type
+   * @return one of the MERGE constants
+   */
+  public static int merge(int type) {
+    return MERGE[type];
+  }
+
+  /**
+   * Encode a piece as an event value
+   *
+   * @param piece the piece, may be null
+   * @return the shape and rotation of the piece, or -1
+   */
+  public static long piece(GamePiece piece) {
+    return piece == null ? -1 : piece.getCode();
+  }
+
+  /**
+   * Decode a piece from an event value
+   *
+   * @param value the value made by piece
+   * @return the piece, or null
+   */
+  public static GamePiece toPiece(long value) {
+    if (value < 0) {
+      return null;
+    }
+    return GamePiece.fromCode((int) value);
+  }
+
+  /**
+   * Pack the level, lives and multiplier into one event value
+   *
+   * @param level      level
+   * @param lives      lives
+   * @param multiplier multiplier
+   * @return packed value
+   */
+  public static long stats(int level, int lives, int multiplier) {
+    return (level & 0xFFFFL) | (lives & 0xFFFFL) << 16 | (multiplier & 0xFFFFL) << 32;
+  }
+}
@@ -0,0 +1,207 @@
+package uk.ac.soton.comp1206.event;
+
+import java.util.Arrays;
+
+/**
+ * A typed event bus for everything that happens in a game, so the UI, recorders and profilers can all observe the
+ * same game.
+ * <p>
+ * There are two kinds of subscriber. A direct subscriber is called straight away on the thread which publishes the
+ * event, which for a game is the thread running the engine. It sees every event, and publishing to it allocates
+ * nothing: the subscribers of each type are kept in an exact-size array which is copied when someone subscribes, so
+ * publishing just walks the array. A pulse subscriber is called from flush, which the UI calls once per pulse. Events
+ * of the same type published between two flushes are merged as GameEvent describes, so a pulse subscriber is called
+ * at most once per type per pulse.
+ */
+public class GameEventBus {
+
+  /**
+   * an empty subscriber list
+   */
+  private static final GameEventListener[] NONE = new GameEventListener[0];
+
+  /**
+   * the direct subscribers of each type
+   */
+  private volatile GameEventListener[][] direct = emptyTable();
+
+  /**
+   * the pulse subscribers of each type
+   */
+  private volatile GameEventListener[][] pulse = emptyTable();
+
+  /**
+   * bit t is set when an event of type t is waiting for the next flush
+   */
+  private int pending;
+
+  /**
+   * first values of the waiting events
+   */
+  private final long[] pendingA = new long[GameEvent.TYPES];
+
+  /**
+   * second values of the waiting events
+   */
+  private final long[] pendingB = new long[GameEvent.TYPES];
+
+  /**
+   * first values being delivered by flush
+   */
+  private final long[] flushA = new long[GameEvent.TYPES];
+
+  /**
+   * second values being delivered by flush
+   */
+  private final long[] flushB = new long[GameEvent.TYPES];
+
+  /**
+   * Create a bus with no subscribers
+   */
+  public GameEventBus() {
+  }
+
+  /**
+   * Create a table with no subscribers
+   *
+   * @return an empty table
+   */
+  private static GameEventListener[][] emptyTable() {
+    GameEventListener[][] table = new GameEventListener[GameEvent.TYPES][];
+    Arrays.fill(table, NONE);
+    return table;
+  }
+
+  /**
+   * Subscribe to a type of event, called on the publishing thread
+   *
+   * @param type     event type
+   * @param listener the subscriber
+   */
+  public synchronized void subscribe(int type, GameEventListener listener) {
+    direct = add(direct, type, listener);
+  }
+
+  /**
+   * Subscribe to a type of event, called from flush with the events merged since the last flush
+   *
+   * @param type     event type
+   * @param listener the subscriber
+   */
+  public synchronized void subscribePulse(int type, GameEventListener listener) {
+    pulse = add(pulse, type, listener);
+  }
+
+  /**
+   * Remove a subscriber of either kind
+   *
+   * @param type     event type
+   * @param listener the subscriber
+   */
+  public synchronized void unsubscribe(int type, GameEventListener listener) {
+    direct = remove(direct, type, listener);
+    pulse = remove(pulse, type, listener);
+  }
+
+  /**
+   * Publish an event
+   *
+   * @param type event type
+   * @param a    first value
+   * @param b    second value
+   */
+  public void publish(int type, long a, long b) {
+    for (GameEventListener listener : direct[type]) {
+      listener.onEvent(type, a, b);
+    }
+    if (pulse[type].length == 0) {
+      return;
+    }
+    synchronized (pendingA) {
+      int bit = 1 << type;
+      if ((pending & bit) == 0) {
+        pendingA[type] = a;
+        pendingB[type] = b;
+        pending |= bit;
+        return;
+      }
+      switch (GameEvent.merge(type)) {
+        case GameEvent.MERGE_OR -> {
+          pendingA[type] |= a;
+          pendingB[type] |= b;
+        }
+        case GameEvent.MERGE_SUM -> {
+          pendingA[type] += a;
+          pendingB[type] += b;
+        }
+        default -> {
+          pendingA[type] = a;
+          pendingB[type] = b;
+        }
+      }
+    }
+  }
+
+  /**
+   * Deliver the merged events to the pulse subscribers, in the order of their types. Should only be called from one
+   * thread.
+   */
+  public void flush() {
+    int ready;
+    synchronized (pendingA) {
+      ready = pending;
+      pending = 0;
+      for (int bits = ready; bits != 0; bits &= bits - 1) {
+        int type = Integer.numberOfTrailingZeros(bits);
+        flushA[type] = pendingA[type];
+        flushB[type] = pendingB[type];
+      }
+    }
+    GameEventListener[][] subscribers = pulse;
+    for (int bits = ready; bits != 0; bits &= bits - 1) {
+      int type = Integer.numberOfTrailingZeros(bits);
+      for (GameEventListener listener : subscribers[type]) {
+        listener.onEvent(type, flushA[type], flushB[type]);
+      }
+    }
+  }
+
+  /**
+   * Copy a table with a subscriber added
+   *
+   * @param table    the table
+   * @param type     event type
+   * @param listener the subscriber
+   * @return the new table
+   */
+  private static GameEventListener[][] add(GameEventListener[][] table, int type, GameEventListener listener) {
+    GameEventListener[][] copy = table.clone();
+    GameEventListener[] row = Arrays.copyOf(table[type], table[type].length + 1);
+    row[row.length - 1] = listener;
+    copy[type] = row;
+    return copy;
+  }
+
+  /**
+   * Copy a table with a subscriber removed
+   *
+   * @param table    the table
+   * @param type     event type
+   * @param listener the subscriber
+   * @return the new table, or the same table if the subscriber was not in it
+   */
+  private static GameEventListener[][] remove(GameEventListener[][] table, int type, GameEventListener listener) {
+    GameEventListener[] row = table[type];
+    for (int i = 0; i < row.length; i++) {
+      if (row[i] == listener) {
+        GameEventListener[] smaller = new GameEventListener[row.length - 1];
+        System.arraycopy(row, 0, smaller, 0, i);
+        System.arraycopy(row, i + 1, smaller, i, row.length - i - 1);
+        GameEventListener[][] copy = table.clone();
+        copy[type] = smaller.length == 0 ? NONE : smaller;
+        return copy;
+      }
+    }
+    return table;
+  }
+}
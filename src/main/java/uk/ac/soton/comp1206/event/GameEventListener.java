@@ -0,0 +1,16 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * listener for the events published on a GameEventBus
+ */
+public interface GameEventListener {
+
+  /**
+   * called for every event of the types this listener subscribed to
+   *
+   * @param type the event type, one of the GameEvent constants
+   * @param a    first value of the event
+   * @param b    second value of the event
+   */
+  public void onEvent(int type, long a, long b);
+}
@@ -0,0 +1,16 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.core.CoordinateSet;
+
+/**
+ * listener which is called once at the end of every change to a grid
+ */
+public interface GridChangedListener {
+
+  /**
+   * abstract method which is used when blocks of the grid have changed
+   *
+   * @param dirty the blocks written during the change, reused by the grid so only valid during the call
+   */
+  public void gridChanged(CoordinateSet dirty);
+}
@@ -1,9 +1,7 @@
 package uk.ac.soton.comp1206.event;
 
 
-import uk.ac.soton.comp1206.component.GameBlockCoordinate;
-
-import java.util.HashSet;
+import uk.ac.soton.comp1206.core.CoordinateSet;
 
 /**
  * listener which used when a line need to be cleared
@@ -12,7 +10,7 @@ public interface LineFadeListener {
   /**
    * abstract method which is used for clearing a line
    *
-   * @param gameBlockCoordinates the coordinate of aiming blocks
+   * @param gameBlockCoordinates the coordinate of aiming blocks, reused by the game so only valid during the call
    */
-  public void lineToClear(HashSet<GameBlockCoordinate> gameBlockCoordinates);
+  public void lineToClear(CoordinateSet gameBlockCoordinates);
 }
@@ -1,29 +1,42 @@
 package uk.ac.soton.comp1206.game;
 
-import javafx.application.Platform;
+import java.util.concurrent.Executor;
+import javafx.animation.AnimationTimer;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.component.GameBlock;
-import uk.ac.soton.comp1206.component.GameBlockCoordinate;
+import uk.ac.soton.comp1206.core.BoardSnapshot;
+import uk.ac.soton.comp1206.core.CoordinateSet;
+import uk.ac.soton.comp1206.core.GameActor;
+import uk.ac.soton.comp1206.core.GameClock;
+import uk.ac.soton.comp1206.core.GameEngine;
+import uk.ac.soton.comp1206.core.GameListener;
+import uk.ac.soton.comp1206.core.GamePiece;
+import uk.ac.soton.comp1206.core.GameSnapshot;
+import uk.ac.soton.comp1206.core.PieceGenerator;
+import uk.ac.soton.comp1206.event.GameEvent;
+import uk.ac.soton.comp1206.event.GameEventBus;
+import uk.ac.soton.comp1206.event.GameEventListener;
 import uk.ac.soton.comp1206.event.GameLoopListener;
 import uk.ac.soton.comp1206.event.LineFadeListener;
 import uk.ac.soton.comp1206.event.NextPieceListener;
 import uk.ac.soton.comp1206.event.gameStopListener;
 import uk.ac.soton.comp1206.media.Multimedia;
 
-import java.util.HashSet;
-import java.util.Random;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
-import java.util.function.BiFunction;
-
 /**
  * The Game class handles the main logic, state and properties of the TetrECS game. Methods to manipulate the game state
  * and to handle actions made by the player should take place inside this class.
+ * <p>
+ * The rules and the state themselves live in a core GameEngine, which does not need JavaFX. The engine is owned by a
+ * GameActor, which runs every command and timeout on its own thread. This class is the JavaFX adapter over it: player
+ * actions are sent to the actor as commands, and once per pulse the latest snapshot is mirrored into the grid and
+ * properties on the JavaFX thread.
+ * <p>
+ * Everything that happens in the game is published on its GameEventBus. Recorders and profilers can subscribe
+ * directly and see every event on the engine thread, while the sounds and the scene listeners are pulse subscribers,
+ * called on the JavaFX thread once per pulse after the snapshot has been shown.
  */
 public class Game {
 
@@ -43,17 +56,64 @@ public class Game {
   protected final int cols;
 
   /**
-   * The grid model linked to the game
+   * The engine holding the rules and state of this game, only used by commands running on the actor
+   */
+  protected final GameEngine engine;
+
+  /**
+   * The actor which owns the engine
+   */
+  protected final GameActor actor;
+
+  /**
+   * The grid model linked to the game, a copy of the engine's board updated every pulse
    */
   protected final Grid grid;
+
+  /**
+   * applies the latest snapshot on every pulse while the game is running
+   */
+  private AnimationTimer pulse;
+
+  /**
+   * the current piece as last shown
+   */
+  private GamePiece currentPiece;
+
+  /**
+   * the following piece as last shown
+   */
+  private GamePiece followingPiece;
+
+  /**
+   * the board of the last snapshot shown, or null before the first
+   */
+  private BoardSnapshot shownBoard;
+
+  /**
+   * the blocks of the lines cleared in the last pulse, reused for every clear
+   */
+  private final CoordinateSet cleared;
+
   /**
-   * The current piece in game, and is the piece which is shown on the right of the game
+   * the number of commands sent to the actor
    */
-  protected GamePiece currentPiece;
+  private long submitted;
+
   /**
-   * The following piece in the game
+   * the number of commands the actor had run in the last snapshot shown
    */
-  protected GamePiece followingPiece;
+  private long applied;
+
+  /**
+   * the number of commands sent to the actor up to and including the last placement
+   */
+  private long placed;
+
+  /**
+   * where the pieces of this game come from
+   */
+  protected final PieceGenerator pieceGenerator;
   /**
    * current score
    */
@@ -74,39 +134,31 @@ public class Game {
    * use to play sound
    */
   protected Multimedia multimedia = new Multimedia();
-  /**
-   * control when the game should be stopped
-   */
-  protected ScheduledExecutorService service;
 
   /**
-   * represents a delayed or periodic task that has been scheduled to run in the future
+   * where everything that happens in the game is published
    */
-  protected ScheduledFuture<?> scheduledFuture;
+  protected final GameEventBus events = new GameEventBus();
 
   /**
-   * the listener which used to handle event when next piece happens
+   * the subscription of the listener which used to handle event when next piece happens
    */
-  protected NextPieceListener nextPieceListener;
+  private GameEventListener nextPieceListener;
 
   /**
-   * listener which is called when a line is cleared
+   * the subscription of the listener which is called when a line is cleared
    */
-  protected LineFadeListener lineFadeListener;
-  /**
-   * listener which is called when game is on loop
-   */
-  protected GameLoopListener gameLoopListener;
+  private GameEventListener lineFadeListener;
 
   /**
-   * listener which is called when a game is ended
+   * the subscription of the listener which is called when game is on loop
    */
-  protected gameStopListener gameStopListener;
+  private GameEventListener gameLoopListener;
 
   /**
-   * hash set used to save coordinates
+   * the subscription of the listener which is called when a game is ended
    */
-  private HashSet<GameBlockCoordinate> hashSet;
+  private GameEventListener gameStopListener;
 
 
   /**
@@ -116,11 +168,65 @@ public class Game {
    * @param rows number of rows
    */
   public Game(int cols, int rows) {
+    this(cols, rows, PieceGenerator.random());
+  }
+
+  /**
+   * Create a new game with the specified rows and columns, dealing pieces from the given generator.
+   * A seeded generator makes the game reproducible.
+   *
+   * @param cols           number of columns
+   * @param rows           number of rows
+   * @param pieceGenerator where the pieces come from
+   */
+  public Game(int cols, int rows, PieceGenerator pieceGenerator) {
+    this(cols, rows, pieceGenerator, GameClock.realTime());
+  }
+
+  /**
+   * Create a new game with the specified rows and columns, dealing pieces from the given generator and running its
+   * timer on the given clock. The game runs on the shared actor thread, so the clock is used from that thread.
+   *
+   * @param cols           number of columns
+   * @param rows           number of rows
+   * @param pieceGenerator where the pieces come from
+   * @param clock          the clock the game timer runs on
+   */
+  public Game(int cols, int rows, PieceGenerator pieceGenerator, GameClock clock) {
+    this(cols, rows, pieceGenerator, clock, GameActor.sharedExecutor());
+  }
+
+  /**
+   * Create a new game with the specified rows and columns, dealing pieces from the given generator, running its
+   * timer on the given clock and its commands on the given executor. Runnable::run with a VirtualClock keeps the whole
+   * game on the caller's thread, so the timer can be advanced by hand and every run is the same.
+   *
+   * @param cols           number of columns
+   * @param rows           number of rows
+   * @param pieceGenerator where the pieces come from
+   * @param clock          the clock the game timer runs on
+   * @param executor       where the actor runs the commands
+   */
+  public Game(int cols, int rows, PieceGenerator pieceGenerator, GameClock clock, Executor executor) {
     this.cols = cols;
     this.rows = rows;
+    this.pieceGenerator = pieceGenerator;
+
+    //Create the engine, which asks this game for its pieces, and hand it to its actor
+    this.engine = new GameEngine(cols, rows, this::spawnPiece);
+    engine.setClock(clock);
+    this.actor = new GameActor(engine, executor);
+    actor.setListener(new EventPublisher());
+
+    //sounds and hooks of the game itself
+    events.subscribePulse(GameEvent.SCORED, (type, lines, blocks) -> scored((int) lines, (int) blocks));
+    events.subscribePulse(GameEvent.LIFE_LOST, (type, a, b) -> multimedia.playAudio("lifelose.wav"));
+    events.subscribePulse(GameEvent.PIECES_SWAPPED, (type, a, b) -> multimedia.playAudio("rotate.wav"));
+    events.subscribePulse(GameEvent.GAME_OVER, (type, a, b) -> pulse.stop());
 
-    //Create a new grid model to represent the game state
+    //Create a new grid model to display a copy of the engine's board
     this.grid = new Grid(cols, rows);
+    this.cleared = new CoordinateSet(cols, rows);
   }
 
   /**
@@ -165,6 +271,17 @@ public class Game {
    */
   public void start() {
     logger.info("open a new game");
+    pulse = new AnimationTimer() {
+      @Override
+      public void handle(long now) {
+        GameSnapshot snapshot = actor.poll();
+        if (snapshot != null) {
+          apply(snapshot);
+        }
+        events.flush();
+      }
+    };
+    pulse.start();
     initialise();
     loop();
   }
@@ -174,14 +291,8 @@ public class Game {
    */
   public void initialise() {
     logger.info("Initialising game");
-    //初始化游戏要先装载piece
-    followingPiece = spawnPiece();
-    currentPiece = followingPiece;
-    followingPiece = spawnPiece();
-    //tell listener to do the method it contains
-    nextPieceListener.nextPiece(currentPiece, followingPiece);
-    //call the nextPieceListener
-    service = Executors.newSingleThreadScheduledExecutor();
+    //deal the current and following piece, the engine tells the nextPieceListener
+    submit(engine::initialise);
   }
 
   /**
@@ -190,25 +301,65 @@ public class Game {
    * @param gameBlock the block that was clicked
    */
   public boolean blockClicked(GameBlock gameBlock) {
-    //Get the position of this block
-    if (grid.canPlayPiece(currentPiece, gameBlock.getX(), gameBlock.getY())) {
-      //if we could play,then play
-      grid.playPiece(currentPiece, gameBlock.getX(), gameBlock.getY());
-      //load next piece
-      return piecePlace();
-    } else {
+    return blockClicked(gameBlock.getX(), gameBlock.getY());
+  }
+
+  /**
+   * Handle what should happen when the block at the given column and row is clicked. Whether the piece fits is
+   * checked against the board as last shown, the actor checks again before placing it.
+   *
+   * @param x column
+   * @param y row
+   * @return true if the current piece fits there
+   */
+  public boolean blockClicked(int x, int y) {
+    //until the last placement is shown, the grid and pieces here are out of date
+    if (applied < placed || currentPiece == null || !grid.canPlayPiece(currentPiece, x, y)) {
       return false;
     }
+    //the engine restarts the timer when the piece is placed, the actor skips it if the piece has changed
+    actor.place(x, y, currentPiece.getCode());
+    submitted++;
+    placed = submitted;
+    return true;
   }
 
   /**
-   * we could use this method when place a new piece
+   * Get the engine holding the rules and state of this game. It belongs to the actor, so it should only be used by
+   * commands sent with getActor().
+   *
+   * @return game engine
    */
-  public boolean piecePlace() {
-    nextPiece();
-    afterPiece();
-    resetLoop();
-    return true;
+  public GameEngine getEngine() {
+    return engine;
+  }
+
+  /**
+   * Get the bus where everything that happens in the game is published
+   *
+   * @return game event bus
+   */
+  public GameEventBus getEventBus() {
+    return events;
+  }
+
+  /**
+   * Get the actor which owns the engine
+   *
+   * @return game actor
+   */
+  public GameActor getActor() {
+    return actor;
+  }
+
+  /**
+   * send a command to the actor
+   *
+   * @param command the command to run against the engine
+   */
+  protected void submit(Runnable command) {
+    actor.submit(command);
+    submitted++;
   }
 
   /**
@@ -239,106 +390,45 @@ public class Game {
   }
 
   /**
-   * Create a new piece with random number
+   * Create a new piece from the piece generator
    *
    * @return the new created piece
    */
   public GamePiece spawnPiece() {
-    Random random = new Random();
-    int randomNumber = random.nextInt(15);
-    return GamePiece.createPiece(randomNumber);
+    return pieceGenerator.next();
   }
 
   /**
    * load next piece and set following piece
    */
   public void nextPiece() {
-    //use following piece to replace current piece and update following piece
-    currentPiece = followingPiece;
-    followingPiece = spawnPiece();
-    //tell listener to do the method it contains
-    nextPieceListener.nextPiece(currentPiece, followingPiece);
-    //call the nextPieceListener
+    submit(engine::nextPiece);
   }
 
-
   /**
-   * Use after place a piece
-   * use a hashset to save the coordinates of the block, if found that one line is full
-   * of number which is bigger than 0, we set the flag clear to true ,which means we need to
-   * clear the element in this line
-   * <p>
-   * use GameBlockCoordinate to contain the information of the coordinates of the blocks
+   * Use after place a piece, the engine clears any full lines
    */
   public void afterPiece() {
-    hashSet = new HashSet<>();
-
-    int horizontalLines = countCompletedLines(rows, cols, grid::get);
-    int verticalLines = countCompletedLines(cols, rows, (i, j) -> grid.get(j, i));
-
-    int lines = horizontalLines + verticalLines;
-
-    if (lines > 0) {
-      for (GameBlockCoordinate gameBlockCoordinate : hashSet) {
-        grid.set(gameBlockCoordinate.getX(), gameBlockCoordinate.getY(), 0);
-      }
-
-      logger.info("clearing!");
-      score(lines, hashSet.size());
-
-      //add after applying the multiplier
-      this.multiplier.set(multiplier.get() + 1);
-
-      if (lineFadeListener != null) {
-        lineFadeListener.lineToClear(hashSet);
-        logger.info("line clearing!");
-      }
-    } else {
-      multiplier.set(1);
-    }
+    submit(engine::afterPiece);
   }
 
   /**
-   * use to assist the afterPiece
+   * use this method to count current score
    *
-   * @param outer    the out number
-   * @param inner    the inner number
-   * @param getValue the get value
-   * @return the lines we cleared
-   */
-  private int countCompletedLines(int outer, int inner, BiFunction<Integer, Integer, Integer> getValue) {
-    int lines = 0;
-
-    for (int i = 0; i < outer; i++) {
-      boolean completed = true;
-      for (int j = 0; j < inner; j++) {
-        if (getValue.apply(i, j) == 0) {
-          completed = false;
-          break;
-        }
-      }
-      if (completed) {
-        lines++;
-        for (int j = 0; j < inner; j++) {
-          hashSet.add(new GameBlockCoordinate(i, j));
-        }
-      }
-    }
-
-    return lines;
+   * @param lines  the lines we cleared
+   * @param blocks the blocks we cleared
+   */
+  public void score(int lines, int blocks) {
+    submit(() -> engine.score(lines, blocks));
   }
 
-
   /**
-   * use this method to count current score
+   * called after the engine has increased the score
    *
    * @param lines  the lines we cleared
    * @param blocks the blocks we cleared
    */
-  public void score(int lines, int blocks) {
-
-    score.set(score.get() + lines * blocks * 10 * this.multiplier.get());
-    this.level.set(this.score.get() / 1000);
+  protected void scored(int lines, int blocks) {
     multimedia.playAudio("level.wav");
   }
 
@@ -347,24 +437,64 @@ public class Game {
    */
   public void endGame() {
     logger.info("we now end the game");
-    service.shutdownNow();
+    submit(engine::stop);
+    if (pulse != null) {
+      pulse.stop();
+    }
   }
 
   /**
    * rotate the current piece
    */
   public void rotateCurrentPiece() {
-    currentPiece.rotate();
+    rotateCurrentPiece(1);
+  }
+
+  /**
+   * rotate the current piece the given number of times
+   *
+   * @param rotations number of rotations
+   */
+  public void rotateCurrentPiece(int rotations) {
+    actor.rotate(rotations);
+    submitted++;
+    //show the result straight away, the actor does the same
+    if (currentPiece != null) {
+      currentPiece = currentPiece.rotated(rotations);
+    }
   }
 
   /**
    * swap the current piece with following piece
    */
   public void swapCurrentPiece() {
+    actor.swap();
+    submitted++;
+    //show the result straight away, the actor does the same
     GamePiece tempPiece = followingPiece;
     followingPiece = currentPiece;
     currentPiece = tempPiece;
-    multimedia.playAudio("rotate.wav");
+  }
+
+  /**
+   * turn on undo and redo for a practice game, every placement and timeout from now on is journalled
+   */
+  public void enableUndo() {
+    submit(engine::enableUndo);
+  }
+
+  /**
+   * undo the latest placement or timeout, if undo is enabled
+   */
+  public void undo() {
+    submit(engine::undo);
+  }
+
+  /**
+   * redo the latest undone placement or timeout
+   */
+  public void redo() {
+    submit(engine::redo);
   }
 
   /**
@@ -373,7 +503,9 @@ public class Game {
    * @param nextPieceListener nextPiece listener
    */
   public void setNextPieceListener(NextPieceListener nextPieceListener) {
-    this.nextPieceListener = nextPieceListener;
+    this.nextPieceListener = resubscribe(GameEvent.NEXT_PIECE, this.nextPieceListener,
+        nextPieceListener == null ? null : (type, current, following) ->
+            nextPieceListener.nextPiece(GameEvent.toPiece(current), GameEvent.toPiece(following)));
   }
 
   /**
@@ -383,7 +515,8 @@ public class Game {
    */
 
   public void setLineFadeListener(LineFadeListener listener) {
-    this.lineFadeListener = listener;
+    this.lineFadeListener = resubscribe(GameEvent.LINES_CLEARED, this.lineFadeListener,
+        listener == null ? null : (type, fullRows, fullCols) -> linesCleared(listener, fullRows, fullCols));
   }
 
   /**
@@ -392,7 +525,8 @@ public class Game {
    * @param gameLoopListener gameLoop listener
    */
   public void setOnGameLoopListener(GameLoopListener gameLoopListener) {
-    this.gameLoopListener = gameLoopListener;
+    this.gameLoopListener = resubscribe(GameEvent.LOOP_STARTED, this.gameLoopListener,
+        gameLoopListener == null ? null : (type, delay, b) -> gameLoopListener.gameLoop((int) delay));
   }
 
   /**
@@ -401,7 +535,26 @@ public class Game {
    * @param gameStopListener gameEnd listener
    */
   public void setGameEndListener(gameStopListener gameStopListener) {
-    this.gameStopListener = gameStopListener;
+    this.gameStopListener = resubscribe(GameEvent.GAME_OVER, this.gameStopListener,
+        gameStopListener == null ? null : (type, a, b) -> gameStopListener.endGame(this));
+  }
+
+  /**
+   * replace the pulse subscription behind one of the listener setters
+   *
+   * @param type     event type
+   * @param old      the subscription being replaced, may be null
+   * @param listener the new subscription, may be null
+   * @return the new subscription
+   */
+  private GameEventListener resubscribe(int type, GameEventListener old, GameEventListener listener) {
+    if (old != null) {
+      events.unsubscribe(type, old);
+    }
+    if (listener != null) {
+      events.subscribePulse(type, listener);
+    }
+    return listener;
   }
 
   /**
@@ -428,8 +581,7 @@ public class Game {
    * @return delay time
    */
   public int getTimerDelay() {
-    int delay = 12000 - (500 * level.get());
-    return Math.max(delay, 2500);
+    return GameEngine.timerDelay(level.get());
   }
 
   /**
@@ -437,54 +589,22 @@ public class Game {
    * gameLoop would be called by timer after every time it finish a loop
    */
   public void gameLoop() {
-    //discard the current piece
-    nextPiece();
-
-    if (lives.get() == 0) {
-      //if we have no more lives, we would stop the game
-      Platform.runLater(() -> gameStopListener.endGame(this));
-
-    } else {
-      updateTime();
-    }
-    //if not end we need to reset the timeline
-    gameLoopListener.gameLoop(getTimerDelay());
-    //every time finishing checking, we restart the loop
-    loop();
+    //discard the current piece and take a life, then restart the loop unless the game is over
+    submit(engine::gameLoop);
   }
 
   /**
-   * use scheduledFuture to represent a loop
+   * start the timer on the game clock, the engine calls gameLoop when it runs out
    */
   public void loop() {
-    //call the gameLoop to check current status after a specified time
-    scheduledFuture = service.schedule(() -> {
-      //discard the current piece
-      nextPiece();
-
-      if (lives.get() == 0) {
-        //if we have no more lives, we would stop the game
-        Platform.runLater(() -> gameStopListener.endGame(Game.this));
-
-      } else {
-        updateTime();
-      }
-      //if not end we need to reset the timeline
-      gameLoopListener.gameLoop(getTimerDelay());
-      //every time finishing checking, we restart the loop
-      loop();
-    }, getTimerDelay(), TimeUnit.MILLISECONDS);
-    gameLoopListener.gameLoop(getTimerDelay());
+    submit(engine::loop);
   }
 
   /**
    * used to update the time in the game
    */
   public void updateTime() {
-    int temp = lives.get();
-    lives.set(temp - 1);
-    multimedia.playAudio("lifelose.wav");
-    multiplier.set(1);
+    submit(engine::loseLife);
   }
 
   /**
@@ -492,7 +612,108 @@ public class Game {
    * let the restart
    */
   public void resetLoop() {
-    scheduledFuture.cancel(false);
-    loop();
+    submit(engine::resetLoop);
+  }
+
+  /**
+   * Show a snapshot of the engine by updating the grid and properties
+   *
+   * @param snapshot the latest snapshot
+   */
+  protected void apply(GameSnapshot snapshot) {
+    BoardSnapshot board = snapshot.getBoard();
+    if (board.getHash() != grid.getHash()) {
+      //only write the rows which changed since the last snapshot shown, not the whole board
+      long changed = shownBoard == null ? -1L : board.changedRows(shownBoard);
+      grid.batch(() -> {
+        for (int y = 0; y < rows; y++) {
+          if ((changed >>> y & 1) != 0) {
+            for (int x = 0; x < cols; x++) {
+              grid.set(x, y, board.get(x, y));
+            }
+          }
+        }
+      });
+    }
+    shownBoard = board;
+
+    score.set(snapshot.getScore());
+    level.set(snapshot.getLevel());
+    lives.set(snapshot.getLives());
+    multiplier.set(snapshot.getMultiplier());
+
+    //pieces rotated or swapped here are already shown, so only take the actor's pieces once it has caught up
+    applied = snapshot.getCommands();
+    if (applied == submitted) {
+      currentPiece = snapshot.getCurrentPiece();
+      followingPiece = snapshot.getFollowingPiece();
+    }
+  }
+
+  /**
+   * called when rows and columns have been cleared, tells the lineFadeListener which blocks were in them
+   *
+   * @param lineFadeListener the listener to tell
+   * @param fullRows         mask of the rows which were cleared
+   * @param fullCols         mask of the columns which were cleared
+   */
+  private void linesCleared(LineFadeListener lineFadeListener, long fullRows, long fullCols) {
+    logger.info("clearing!");
+    //reuse the set to save the coordinates of the blocks in the cleared lines
+    cleared.clear();
+    cleared.addLines(fullRows, fullCols);
+    lineFadeListener.lineToClear(cleared);
+    logger.info("line clearing!");
+  }
+
+  /**
+   * Publishes the events of the engine on the event bus, called on the actor
+   */
+  private class EventPublisher implements GameListener {
+
+    @Override
+    public void nextPiece(GamePiece currentPiece, GamePiece followingGamePiece) {
+      events.publish(GameEvent.NEXT_PIECE, GameEvent.piece(currentPiece), GameEvent.piece(followingGamePiece));
+    }
+
+    @Override
+    public void piecePlaced(GamePiece piece, int x, int y) {
+      events.publish(GameEvent.PIECE_PLACED, GameEvent.piece(piece), (long) y << 32 | x);
+    }
+
+    @Override
+    public void linesCleared(long fullRows, long fullCols, int blocks) {
+      events.publish(GameEvent.LINES_CLEARED, fullRows, fullCols);
+    }
+
+    @Override
+    public void scored(int lines, int blocks) {
+      events.publish(GameEvent.SCORED, lines, blocks);
+    }
+
+    @Override
+    public void lifeLost() {
+      events.publish(GameEvent.LIFE_LOST, 1, 0);
+    }
+
+    @Override
+    public void piecesSwapped() {
+      events.publish(GameEvent.PIECES_SWAPPED, 1, 0);
+    }
+
+    @Override
+    public void statsChanged(int score, int level, int lives, int multiplier) {
+      events.publish(GameEvent.STATS_CHANGED, score, GameEvent.stats(level, lives, multiplier));
+    }
+
+    @Override
+    public void loopStarted(int delay) {
+      events.publish(GameEvent.LOOP_STARTED, delay, 0);
+    }
+
+    @Override
+    public void gameOver() {
+      events.publish(GameEvent.GAME_OVER, engine.getScore(), 0);
+    }
   }
 }
@@ -2,6 +2,15 @@ package uk.ac.soton.comp1206.game;
 
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
+import uk.ac.soton.comp1206.core.Board;
+import uk.ac.soton.comp1206.core.BoardSnapshot;
+import uk.ac.soton.comp1206.core.CoordinateSet;
+import uk.ac.soton.comp1206.core.GamePiece;
+import uk.ac.soton.comp1206.core.MoveList;
+import uk.ac.soton.comp1206.event.GridChangedListener;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The Grid is a model which holds the state of a game board. It is made up of a set of Integer values arranged in a 2D
@@ -10,7 +19,12 @@ import javafx.beans.property.SimpleIntegerProperty;
  * Each value inside the Grid is an IntegerProperty can be bound to enable modification and display of the contents of
  * the grid.
  * <p>
- * The Grid contains functions related to modifying the model, for example, placing a piece inside the grid.
+ * The Grid is a JavaFX adapter over a core Board, which holds the real state and the occupancy bitboards. Every change
+ * to the Board is mirrored into the properties, and every modification made through the Grid goes to the Board.
+ * <p>
+ * Changes are grouped into transactions. Every write made inside batch, or by one call such as playPiece or reset, is
+ * collected into a set of dirty blocks, and the GridChangedListeners are called once at the end with that set, so a
+ * display only repaints each changed block once however many times it was written.
  * <p>
  * The Grid should be linked to a GameBoard for it's display.
  */
@@ -26,11 +40,31 @@ public class Grid {
    */
   private final int rows;
 
+  /**
+   * The board holding the state this grid displays
+   */
+  private final Board board;
+
   /**
    * The grid is a 2D arrow with rows and columns of SimpleIntegerProperties.
    */
   private final SimpleIntegerProperty[][] grid;
 
+  /**
+   * the blocks written during the current transaction
+   */
+  private final CoordinateSet dirty;
+
+  /**
+   * the listeners called at the end of every transaction
+   */
+  private final List<GridChangedListener> changeListeners = new ArrayList<>();
+
+  /**
+   * how many batches are open, the transaction ends when this goes back to 0
+   */
+  private int depth;
+
   /**
    * Create a new Grid with the specified number of columns and rows and initialise them
    *
@@ -38,8 +72,18 @@ public class Grid {
    * @param rows number of rows
    */
   public Grid(int cols, int rows) {
-    this.cols = cols;
-    this.rows = rows;
+    this(new Board(cols, rows));
+  }
+
+  /**
+   * Create a new Grid which mirrors an existing board
+   *
+   * @param board the board to display
+   */
+  public Grid(Board board) {
+    this.board = board;
+    this.cols = board.getCols();
+    this.rows = board.getRows();
 
     //Create the grid itself
     grid = new SimpleIntegerProperty[cols][rows];
@@ -47,11 +91,69 @@ public class Grid {
     //Add a SimpleIntegerProperty to every block in the grid
     for (var y = 0; y < rows; y++) {
       for (var x = 0; x < cols; x++) {
-        grid[x][y] = new SimpleIntegerProperty(0);
+        grid[x][y] = new SimpleIntegerProperty(board.get(x, y));
+      }
+    }
+
+    dirty = new CoordinateSet(cols, rows);
+
+    //Keep the properties in step with the board, and remember which blocks changed
+    board.setListener((x, y, value) -> {
+      grid[x][y].set(value);
+      dirty.add(x, y);
+      if (depth == 0) {
+        commit();
+      }
+    });
+  }
+
+  /**
+   * add a listener which is called once at the end of every change to the grid
+   *
+   * @param listener grid changed listener
+   */
+  public void addChangeListener(GridChangedListener listener) {
+    changeListeners.add(listener);
+  }
+
+  /**
+   * Make many changes as one transaction, the listeners are only called once they are all done
+   *
+   * @param changes the changes to make
+   */
+  public void batch(Runnable changes) {
+    depth++;
+    try {
+      changes.run();
+    } finally {
+      if (--depth == 0) {
+        commit();
       }
     }
   }
 
+  /**
+   * end a transaction by telling the listeners which blocks were written
+   */
+  private void commit() {
+    if (dirty.isEmpty()) {
+      return;
+    }
+    for (GridChangedListener listener : changeListeners) {
+      listener.gridChanged(dirty);
+    }
+    dirty.clear();
+  }
+
+  /**
+   * Get the board this grid mirrors
+   *
+   * @return the core board
+   */
+  public Board getBoard() {
+    return board;
+  }
+
   /**
    * Get the Integer property contained inside the grid at a given row and column index. Can be used for binding.
    *
@@ -71,7 +173,7 @@ public class Grid {
    * @param value the new value
    */
   public void set(int x, int y, int value) {
-    grid[x][y].set(value);
+    board.set(x, y, value);
   }
 
   /**
@@ -82,13 +184,114 @@ public class Grid {
    * @return the value
    */
   public int get(int x, int y) {
-    try {
-      //Get the value held in the property at the x and y index provided
-      return grid[x][y].get();
-    } catch (ArrayIndexOutOfBoundsException e) {
-      //No such index
-      return -1;
-    }
+    return board.get(x, y);
+  }
+
+  /**
+   * Get the Zobrist hash of the grid, kept up to date as blocks change
+   *
+   * @return the hash
+   */
+  public long getHash() {
+    return board.getHash();
+  }
+
+  /**
+   * Get the Zobrist hash of the grid together with the current and following pieces
+   *
+   * @param currentPiece   the current piece
+   * @param followingPiece the following piece
+   * @return the hash of the game state
+   */
+  public long getHash(GamePiece currentPiece, GamePiece followingPiece) {
+    return board.getHash(currentPiece, followingPiece);
+  }
+
+  /**
+   * Take an immutable snapshot of the grid, which shares its storage with the board until the board next changes
+   *
+   * @return the snapshot
+   */
+  public BoardSnapshot snapshot() {
+    return board.snapshot();
+  }
+
+  /**
+   * Get the occupancy bitboard of a row, bit x is set when the block at (x, y) is filled
+   *
+   * @param y row
+   * @return the row mask
+   */
+  public long getRowMask(int y) {
+    return board.getRowMask(y);
+  }
+
+  /**
+   * Get the occupancy bitboard of a column, bit y is set when the block at (x, y) is filled
+   *
+   * @param x column
+   * @return the column mask
+   */
+  public long getColMask(int x) {
+    return board.getColMask(x);
+  }
+
+  /**
+   * Get the number of filled blocks in a row
+   *
+   * @param y row
+   * @return filled blocks in the row
+   */
+  public int getRowCount(int y) {
+    return board.getRowCount(y);
+  }
+
+  /**
+   * Get the number of filled blocks in a column
+   *
+   * @param x column
+   * @return filled blocks in the column
+   */
+  public int getColCount(int x) {
+    return board.getColCount(x);
+  }
+
+  /**
+   * check if every block in a row is filled
+   *
+   * @param y row
+   * @return true if the row is full
+   */
+  public boolean isRowFull(int y) {
+    return board.isRowFull(y);
+  }
+
+  /**
+   * check if every block in a column is filled
+   *
+   * @param x column
+   * @return true if the column is full
+   */
+  public boolean isColFull(int x) {
+    return board.isColFull(x);
+  }
+
+  /**
+   * Get every full row in the grid
+   *
+   * @return a mask with bit y set for every full row y
+   */
+  public long fullRows() {
+    return board.fullRows();
+  }
+
+  /**
+   * Get every full column in the grid
+   *
+   * @return a mask with bit x set for every full column x
+   */
+  public long fullCols() {
+    return board.fullCols();
   }
 
   /**
@@ -118,9 +321,7 @@ public class Grid {
    * @return if we could place here
    */
   public boolean canPlayPiece(GamePiece gamePiece, int x, int y) {
-    int[][] pieceBlock = gamePiece.getBlocks();
-    return ifPlay(pieceBlock, x, y);
-
+    return board.canPlayPiece(gamePiece, x, y);
   }
 
   /**
@@ -132,24 +333,28 @@ public class Grid {
    * @return if we could play a piece
    */
   public boolean ifPlay(int[][] pieceBlock, int x, int y) {
-    x = x - 1;
-    y = y - 1;
-    for (int i = 0; i < pieceBlock.length; i++) {
-      for (int j = 0; j < pieceBlock[i].length; j++) {
-        int value = pieceBlock[i][j];
-        if (value == 0) {
-          //if we find a value is 0 we just simply continue
-          continue;
-        }
-        int place = get(x + i, y + j);
-        if (place != 0) {
-          return false;
-        }
-      }
-    }
-    return true;
+    return board.ifPlay(pieceBlock, x, y);
+  }
 
+  /**
+   * Find every legal placement of a piece, in every rotation which fills different blocks
+   *
+   * @param gamePiece the piece to place
+   * @param moves     the list to fill, which is cleared first
+   * @return the number of legal moves
+   */
+  public int legalMoves(GamePiece gamePiece, MoveList moves) {
+    return board.legalMoves(gamePiece, moves);
+  }
 
+  /**
+   * check if a piece can be placed anywhere on the grid in any rotation
+   *
+   * @param gamePiece the piece to place
+   * @return true if there is at least one legal move
+   */
+  public boolean hasLegalMove(GamePiece gamePiece) {
+    return board.hasLegalMove(gamePiece);
   }
 
   /**
@@ -160,11 +365,7 @@ public class Grid {
    * @param y         the y coordinate
    */
   public void playPiece(GamePiece gamePiece, int x, int y) {
-    x = x - 1;
-    y = y - 1;
-    //a 2D array,which indicates the shape of the block
-    int[][] pieceBlock = gamePiece.getBlocks();
-    play(pieceBlock, x, y);
+    batch(() -> board.playPiece(gamePiece, x, y));
   }
 
   /**
@@ -174,26 +375,13 @@ public class Grid {
    * @param y the y coordinate
    */
   public void play(int[][] pieceBlock, int x, int y) {
-    for (int i = 0; i < pieceBlock.length; i++) {
-      for (int j = 0; j < pieceBlock[i].length; j++) {
-        int place = pieceBlock[i][j];
-        if (place == 0) {
-          continue;
-        }
-        //set to correspond piece
-        set(i + x, j + y, place);
-      }
-    }
+    batch(() -> board.play(pieceBlock, x, y));
   }
 
   /**
    * reset the grid
    */
   public void reset() {
-    for (int x = 0; x < cols; x++) {
-      for (int y = 0; y < rows; y++) {
-        grid[x][y].set(0);
-      }
-    }
+    batch(board::reset);
   }
 }
@@ -1,13 +1,14 @@
 package uk.ac.soton.comp1206.game;
 
-import javafx.application.Platform;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.core.GamePiece;
+import uk.ac.soton.comp1206.event.GameEvent;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.Protocol;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
 import java.util.LinkedList;
-import java.util.concurrent.Executors;
 
 /**
  * this class is used for game logic of multi-game
@@ -19,6 +20,11 @@ public class MultiplayerGame extends Game {
    */
   private static final Logger logger = LogManager.getLogger(MultiplayerGame.class);
 
+  /**
+   * how many pieces to keep asked for beyond the current and following piece, so a slow reply does not hold a deal
+   */
+  private static final int PIECES_AHEAD = 5;
+
   /**
    * gameWindow used to set communicator
    */
@@ -34,6 +40,10 @@ public class MultiplayerGame extends Game {
    */
   protected LinkedList<GamePiece> queue;
 
+  /**
+   * the number of pieces asked for which the server has not sent yet, only touched by the actor
+   */
+  private int requested;
 
   /**
    * Create a new game with the specified rows and columns. Creates a corresponding grid model.
@@ -52,44 +62,53 @@ public class MultiplayerGame extends Game {
   @Override
   public void initialise() {
     queue = new LinkedList<>();
-    service = Executors.newSingleThreadScheduledExecutor();
     communicator = gameWindow.getCommunicator();
-    communicator.send("PIECE");
-    communicator.send("PIECE");
-    communicator.send("PIECE");
-    communicator.send("PIECE");
-    communicator.send("PIECE");
-    communicator.send("PIECE");
-    communicator.send("PIECE");
-    //Listens for messages from communicator and handles the command
-    communicator.addListener(message -> Platform.runLater(() -> messageHandle(message)));
+    //Listens for pieces from communicator and handles them on the actor, which owns the pieces
+    communicator.on(Protocol.PIECE, piece -> actor.post(() -> receivePiece(piece)));
+    //if someone gain a new score, they have to send it to server
+    events.subscribe(GameEvent.SCORED, (type, lines, blocks) -> sendScore());
+    //ask for the current and following piece as well as the ones ahead
+    actor.post(() -> requestPieces(2 + PIECES_AHEAD));
+  }
 
+  /**
+   * ask the server for more pieces until enough are queued or on their way, runs on the actor
+   *
+   * @param wanted the number of pieces to have queued or asked for
+   */
+  private void requestPieces(int wanted) {
+    while (queue.size() + requested < wanted) {
+      if (!communicator.trySend("PIECE")) {
+        //the send queue is full, the next deal asks again
+        break;
+      }
+      requested++;
+    }
   }
 
   /**
-   * handle the received messages
+   * handle a piece from the server, runs on the actor
    *
-   * @param message the message from server
+   * @param piece the piece message from server
    */
-  protected void messageHandle(String message) {
-    message = message.trim();
-
-    if (message.contains("PIECE")) {
-      logger.info("Adding new piece");
-      message = message.replace("PIECE ", "");
-      //create new value the server gives
-      int number = Integer.parseInt(message);
-      GamePiece gamePiece = GamePiece.createPiece(number);
-//      addNewPiece(gamePiece);
-      if (currentPiece == null) {
-        currentPiece = gamePiece; //First Piece
-      } else if (followingPiece == null) {
-        //if we have the currentPiece but don't have the following piece,we set the following piece with new piece
-        followingPiece(gamePiece);
-      } else if (currentPiece != null) {
-        // we have both piece,we add it to the queue,waiting to add to the pieceBoard
-        queue.add(gamePiece);//Creates Queue
+  protected void receivePiece(Protocol.Piece piece) {
+    logger.info("Adding new piece");
+    requested = Math.max(0, requested - 1);
+    //create new value the server gives
+    GamePiece gamePiece = GamePiece.createPiece(piece.value());
+    if (engine.getCurrentPiece() == null) {
+      engine.setCurrentPiece(gamePiece); //First Piece
+      if (engine.getFollowingPiece() != null) {
+        //a held deal left the current piece empty, show it now it has come
+        events.publish(GameEvent.NEXT_PIECE, GameEvent.piece(gamePiece), GameEvent.piece(engine.getFollowingPiece()));
       }
+    } else if (engine.getFollowingPiece() == null) {
+      //if we have the currentPiece but don't have the following piece,we set the following piece with new piece
+      //this is also where a held deal is finished
+      followingPiece(gamePiece);
+    } else {
+      // we have both piece,we add it to the queue,waiting to add to the pieceBoard
+      queue.add(gamePiece);//Creates Queue
     }
   }
 
@@ -100,70 +119,37 @@ public class MultiplayerGame extends Game {
    * @param piece the following piece
    */
   public void followingPiece(GamePiece piece) {
-    followingPiece = piece; //Second Piece
+    engine.setFollowingPiece(piece); //Second Piece
     //update pieceBoard
-    nextPieceListener.nextPiece(currentPiece, followingPiece);
+    events.publish(GameEvent.NEXT_PIECE, GameEvent.piece(engine.getCurrentPiece()), GameEvent.piece(piece));
   }
 
 
   /**
-   * override the old method which could load followingPiece with the piece in the queue
-   */
-  @Override
-  public void nextPiece() {
-    currentPiece = followingPiece;
-    //we set followingPiece with queue
-    next();
-  }
-
-  /**
-   * assist nextPiece to get next piece
-   */
-  public void next() {
-    followingPiece = queue.remove();
-    //update the pieceBoard
-    nextPieceListener.nextPiece(currentPiece, followingPiece);
-    //request for the next piece
-    communicator.send("PIECE");
-  }
-
-
-  /**
-   * override the score,similar to old one,but send the score to server
+   * override the old method so the engine deals the following piece from the queue
+   * instead of a random one, runs on the actor
    *
-   * @param lines  the number of lines we cleared
-   * @param blocks the number of blocks we cleared
+   * @return the next piece the server gave us, or null if the server has fallen behind
    */
   @Override
-  public void score(int lines, int blocks) {
-    //if someone gain a new score, they have to send it to server
-    super.score(lines, blocks);
-    //update my current score
-    communicator.send("SCORE " + this.scoreProperty().get());
-    logger.info("our score gonna send is " + this.scoreProperty().get());
-
+  public GamePiece spawnPiece() {
+    GamePiece piece = queue.poll();
+    //request for the next piece, and more if the queue has run low
+    requestPieces(PIECES_AHEAD);
+    if (piece == null) {
+      //every player must get the same pieces, so hold the deal until receivePiece fills the gap with the next one
+      logger.warn("No piece from the server yet, holding the deal");
+    }
+    return piece;
   }
 
   /**
-   * override the gameLoop because we have to send lives to update the current lives of the game
+   * send our new score to the server, called on the actor as soon as the engine has scored, since the score shown
+   * at the pulse may not have caught up yet
    */
-  @Override
-  public void gameLoop() {
-    //discard the current piece
-    nextPiece();
-
-    if (lives.get() == 0) {
-      //if we have no more lives, we would stop the game
-
-      Platform.runLater(() -> gameStopListener.endGame(this));
-
-    } else {
-      updateTime();
-    }
-
-    //if not end we need to reset the timeline
-    gameLoopListener.gameLoop(getTimerDelay());
-    //every time finishing checking, we restart the loop
-    loop();
+  protected void sendScore() {
+    int newScore = engine.getScore();
+    communicator.send("SCORE " + newScore);
+    logger.info("our score gonna send is " + newScore);
   }
 }
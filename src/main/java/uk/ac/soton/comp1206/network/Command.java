@@ -0,0 +1,74 @@
+package uk.ac.soton.comp1206.network;
+
+import java.util.function.Function;
+
+/**
+ * A command the server can send, with the decoder which turns its payload into a message of type T. The commands
+ * are the constants of Protocol.
+ *
+ * @param <T> the type of the decoded message
+ */
+public final class Command<T> {
+
+  /**
+   * the command word, such as CHANNELS
+   */
+  private final String name;
+
+  /**
+   * whether each message replaces the ones before it, so only the latest needs to be handled
+   */
+  private final boolean snapshot;
+
+  /**
+   * turns the payload, the text after the command word, into a message
+   */
+  private final Function<String, T> decoder;
+
+  /**
+   * Create a command
+   *
+   * @param name     the command word
+   * @param snapshot whether each message replaces the ones before it
+   * @param decoder  turns the payload into a message
+   */
+  Command(String name, boolean snapshot, Function<String, T> decoder) {
+    this.name = name;
+    this.snapshot = snapshot;
+    this.decoder = decoder;
+  }
+
+  /**
+   * Get the command word
+   *
+   * @return name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Get whether each message replaces the ones before it, like a full list of channels, so a handler which is behind
+   * only needs the latest
+   *
+   * @return snapshot
+   */
+  public boolean isSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Decode a payload
+   *
+   * @param payload the text after the command word, trimmed, which may be empty
+   * @return the message
+   */
+  public T decode(String payload) {
+    return decoder.apply(payload);
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -1,18 +1,48 @@
 package uk.ac.soton.comp1206.network;
 
 import com.neovisionaries.ws.client.*;
-import javafx.scene.control.Alert;
+import javafx.animation.AnimationTimer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.event.CommunicationsListener;
+import uk.ac.soton.comp1206.event.ConnectionStateListener;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Uses web sockets to talk to a web socket server and relays communication to attached listeners
  * <p>
- * YOU DO NOT NEED TO WORRY ABOUT THIS CLASS! Leave it be :-)
+ * Connecting never blocks the caller. The connection is opened on the communicator's own thread, and if it fails or
+ * is lost it is tried again after an exponential backoff with jitter, until close is called. ConnectionStateListeners
+ * are told as the state changes.
+ * <p>
+ * Sent messages go on a bounded queue and are written by the communicator's thread, a frame after the first of them
+ * was queued, as one batch flushed to the socket in one go. While there is no connection they wait on the queue
+ * until it is back. A message whose command only needs its latest value, like SCORE, replaces one of the same
+ * command still waiting instead of being queued behind it. When the queue is full a chat message is dropped to make
+ * room, and a request sent with trySend, like PIECE or a poll, is refused so its caller asks again later. Only
+ * messages the player sends once, like JOIN or DIE, are queued over the limit, so they are never lost and the queue
+ * only grows past it by what the player does. When the socket falls behind the
+ * communicator's thread waits for it, so the caller never does. Messages a dropped socket did not send are sent
+ * again, first, once the connection is back.
+ * <p>
+ * Requests for things the server only sends when asked, like the channel list, are polled with poll. Polls are
+ * shared between scenes, slow down while the replies stay the same and are stopped with clearPolls.
+ * <p>
+ * Handlers added with onPulse are called on the JavaFX thread. Received messages are put on a lock-free queue, and
+ * once per pulse up to PULSE_BUDGET of them are taken off and routed as one batch, so a burst after reconnecting or
+ * at the start of a game is spread over a few frames instead of flooding the event queue with a runnable each.
  */
 public class Communicator {
   /**
@@ -20,35 +50,168 @@ public class Communicator {
    */
   private static final Logger logger = LogManager.getLogger(Communicator.class);
 
+  /**
+   * how long to wait for the server to accept a connection, in milliseconds
+   */
+  private static final int CONNECT_TIMEOUT = 5000;
+
+  /**
+   * the wait before the first retry, in milliseconds
+   */
+  private static final long MIN_BACKOFF = 500;
+
+  /**
+   * the longest wait between retries, in milliseconds
+   */
+  private static final long MAX_BACKOFF = 30000;
+
+  /**
+   * the most messages waiting to be sent, both on our queue and on the socket's, before chat is dropped and requests
+   * are refused
+   */
+  private static final int MAX_QUEUED = 256;
+
+  /**
+   * how long a message waits for others to be sent in the same batch, in milliseconds, about one frame
+   */
+  private static final long BATCH_DELAY = 16;
+
+  /**
+   * the most messages delivered to pulse handlers in one pulse, the rest wait for the next
+   */
+  private static final int PULSE_BUDGET = 64;
+
+  /**
+   * the server to connect to
+   */
+  private final String server;
+
+  /**
+   * makes the web sockets
+   */
+  private final WebSocketFactory socketFactory = new WebSocketFactory();
+
+  /**
+   * the thread connections are opened and retried on
+   */
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+    Thread thread = new Thread(task, "communicator");
+    thread.setDaemon(true);
+    return thread;
+  });
+
   /**
    * Attached communication listeners listening to messages on this Communicator. Each will be sent any messages.
    */
-  private final List<CommunicationsListener> handlers = new ArrayList<>();
+  private final List<CommunicationsListener> handlers = new CopyOnWriteArrayList<>();
+
+  /**
+   * routes messages to the handlers of their command
+   */
+  private final MessageRouter router = new MessageRouter();
+
+  /**
+   * sends the requests which are polled
+   */
+  private final Poller poller = new Poller(this, executor);
+
+  /**
+   * routes messages to the pulse handlers of their command, on the JavaFX thread
+   */
+  private final MessageRouter pulseRouter = new MessageRouter();
+
+  /**
+   * messages waiting for the next pulse
+   */
+  private final ConcurrentLinkedQueue<String> inbox = new ConcurrentLinkedQueue<>();
+
+  /**
+   * the batch of messages being delivered this pulse, only used on the JavaFX thread
+   */
+  private final List<String> batch = new ArrayList<>();
+
+  /**
+   * delivers messages to the pulse handlers once per pulse, made when the first is added
+   */
+  private AnimationTimer pulse;
+
+  /**
+   * whether the pulse timer is running, only used on the JavaFX thread
+   */
+  private boolean pulseRunning;
+
+  /**
+   * listeners told when the connection state changes
+   */
+  private final List<ConnectionStateListener> stateListeners = new CopyOnWriteArrayList<>();
 
   /**
-   * the webSocket of this class
+   * messages waiting to be sent, guarded by this
+   */
+  private final ArrayDeque<Outgoing> queue = new ArrayDeque<>();
+
+  /**
+   * messages written to a socket which dropped before sending them, sent before the queue, guarded by this
+   */
+  private final ArrayDeque<String> unsent = new ArrayDeque<>();
+
+  /**
+   * the waiting message of each command which only needs its latest value, guarded by this
+   */
+  private final Map<String, Outgoing> latest = new HashMap<>();
+
+  /**
+   * whether a flush of the queue has been scheduled, guarded by this
+   */
+  private boolean flushScheduled;
+
+  /**
+   * the connection state, guarded by this
+   */
+  private ConnectionState state = ConnectionState.CONNECTING;
+
+  /**
+   * the webSocket of this class while connected, guarded by this
    */
   private WebSocket ws = null;
 
   /**
-   * Create a new communicator to the given web socket server
+   * connection attempts which have failed since the last connection, guarded by this
+   */
+  private int failures;
+
+  /**
+   * Create a new communicator to the given web socket server, and start connecting in the background
    *
    * @param server server to connect to
    */
   public Communicator(String server) {
+    this.server = server;
+    executor.execute(this::connect);
+  }
 
-    try {
-      var socketFactory = new WebSocketFactory();
+  /**
+   * Try to connect, on the communicator's thread
+   */
+  private void connect() {
+    if (!changeState(ConnectionState.CONNECTING)) {
+      return;
+    }
 
-      //Connect to the server
-      ws = socketFactory.createSocket(server);
-      ws.connect();
-      logger.info("Connected to " + server);
+    WebSocket socket;
+    try {
+      socket = socketFactory.createSocket(server, CONNECT_TIMEOUT);
+      //frames are written in batches by flush, and sending blocks our thread when the socket falls behind
+      socket.setAutoFlush(false);
+      socket.setFrameQueueSize(MAX_QUEUED);
 
       //When a message is received, call the receive method
-      ws.addListener(new WebSocketAdapter() {
+      socket.addListener(new WebSocketAdapter() {
         @Override
         public void onTextMessage(WebSocket websocket, String message) throws Exception {
+          if (message.startsWith("ERROR")) {
+            logger.error(message);
+          }
           Communicator.this.receive(websocket, message);
         }
 
@@ -56,49 +219,289 @@ public class Communicator {
         public void onPingFrame(WebSocket webSocket, WebSocketFrame webSocketFrame) throws Exception {
           logger.info("Ping? Pong!");
         }
-      });
 
-      //Error handling
-      ws.addListener(new WebSocketAdapter() {
         @Override
-        public void onTextMessage(WebSocket websocket, String message) throws Exception {
-          if (message.startsWith("ERROR")) {
-            logger.error(message);
+        public void onDisconnected(WebSocket websocket, WebSocketFrame serverCloseFrame,
+            WebSocketFrame clientCloseFrame, boolean closedByServer) throws Exception {
+          Communicator.this.disconnected(websocket);
+        }
+
+        @Override
+        public void onFrameUnsent(WebSocket websocket, WebSocketFrame frame) throws Exception {
+          if (frame.isTextFrame()) {
+            Communicator.this.unsent(List.of(frame.getPayloadText()));
           }
         }
 
         @Override
         public void handleCallbackError(WebSocket webSocket, Throwable throwable) throws Exception {
-          logger.error("Callback Error:" + throwable.getMessage());
-          throwable.printStackTrace();
+          logger.error("Callback Error:" + throwable.getMessage(), throwable);
         }
 
         @Override
         public void onError(WebSocket webSocket, WebSocketException e) throws Exception {
           logger.error("Error:" + e.getMessage());
-          e.printStackTrace();
         }
       });
 
+      socket.connect();
     } catch (Exception e) {
-      logger.error("Socket error: " + e.getMessage());
-      e.printStackTrace();
+      logger.warn("Unable to connect to {}: {}", server, e.getMessage());
+      retry();
+      return;
+    }
 
-      Alert error = new Alert(Alert.AlertType.ERROR, "Unable to communicate with the TetrECS server\n\n" + e.getMessage() + "\n\nPlease ensure you are connected to the VPN");
-      error.showAndWait();
-      System.exit(1);
+    boolean open;
+    synchronized (this) {
+      if (state == ConnectionState.CLOSED) {
+        socket.disconnect();
+        return;
+      }
+      //a socket which was dropped before now was ignored by disconnected, as it was not ws yet
+      open = socket.isOpen();
+      if (open) {
+        ws = socket;
+        failures = 0;
+      }
+    }
+    if (!open) {
+      logger.warn("Lost connection to {} as it opened", server);
+      retry();
+      return;
     }
+    logger.info("Connected to " + server);
+    changeState(ConnectionState.CONNECTED);
+    //send what was queued while we were connecting
+    flush();
   }
 
   /**
-   * Send a message to the server
+   * Write every waiting message to the socket and flush it, on the communicator's thread, which is the only thread
+   * which writes, so messages go out in the order they were sent
+   */
+  private void flush() {
+    WebSocket socket;
+    List<String> batch = new ArrayList<>();
+    synchronized (this) {
+      flushScheduled = false;
+      socket = ws;
+      if (socket == null) {
+        return;
+      }
+      batch.addAll(unsent);
+      unsent.clear();
+      for (Outgoing outgoing : queue) {
+        batch.add(outgoing.message);
+      }
+      queue.clear();
+      latest.clear();
+    }
+    //outside the lock, as a full socket queue makes this wait
+    for (int i = 0; i < batch.size(); i++) {
+      if (!socket.isOpen()) {
+        //a closed socket drops what it is given, so keep the rest for the next connection
+        unsent(batch.subList(i, batch.size()));
+        return;
+      }
+      socket.sendText(batch.get(i));
+    }
+    socket.flush();
+  }
+
+  /**
+   * Keep messages which a socket did not send, to send first once connected again
+   *
+   * @param messages the messages, in the order they were sent
+   */
+  private synchronized void unsent(List<String> messages) {
+    if (state != ConnectionState.CLOSED) {
+      unsent.addAll(messages);
+    }
+  }
+
+  /**
+   * Called when a socket loses its connection
+   *
+   * @param socket the socket
+   */
+  private void disconnected(WebSocket socket) {
+    synchronized (this) {
+      if (socket != ws || state == ConnectionState.CLOSED) {
+        return;
+      }
+      ws = null;
+    }
+    logger.warn("Lost connection to {}", server);
+    retry();
+  }
+
+  /**
+   * Wait for the backoff, then try to connect again
+   */
+  private void retry() {
+    long delay;
+    synchronized (this) {
+      delay = backoff(failures++);
+    }
+    if (changeState(ConnectionState.DISCONNECTED)) {
+      logger.info("Trying {} again in {}ms", server, delay);
+      executor.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Get how long to wait before trying again. The wait doubles with each failure up to a limit, and a random part of
+   * it is taken off so many clients which lost the server at once do not all come back together.
+   *
+   * @param failures the number of attempts which have failed
+   * @return the wait in milliseconds
+   */
+  static long backoff(int failures) {
+    long wait = Math.min(MAX_BACKOFF, MIN_BACKOFF << Math.min(failures, 16));
+    return wait / 2 + ThreadLocalRandom.current().nextLong(wait / 2 + 1);
+  }
+
+  /**
+   * Move to a new state and tell the listeners, unless the communicator has been closed
+   *
+   * @param newState the new state
+   * @return false if the communicator has been closed
+   */
+  private boolean changeState(ConnectionState newState) {
+    synchronized (this) {
+      if (state == ConnectionState.CLOSED) {
+        return false;
+      }
+      if (ws == null && newState == ConnectionState.CONNECTED) {
+        //lost again before we could say so
+        return true;
+      }
+      state = newState;
+    }
+    for (ConnectionStateListener listener : stateListeners) {
+      listener.stateChanged(newState);
+    }
+    return true;
+  }
+
+  /**
+   * Get the connection state
+   *
+   * @return state
+   */
+  public synchronized ConnectionState getState() {
+    return state;
+  }
+
+  /**
+   * Send a message to the server in the next batch, or when the connection is back
+   *
+   * @param message Message to send
+   * @return false if the message was dropped, as it is chat and the queue is full, or the communicator is closed
+   */
+  public boolean send(String message) {
+    return enqueue(message, false);
+  }
+
+  /**
+   * Send a request which the caller will ask for again, refusing it if the queue is full
    *
    * @param message Message to send
+   * @return false if the message was refused, as the queue is full, or the communicator is closed
+   */
+  public boolean trySend(String message) {
+    return enqueue(message, true);
+  }
+
+  /**
+   * Put a message on the queue for the next batch
+   *
+   * @param message    Message to send
+   * @param refuseFull whether to refuse the message rather than go over the limit
+   * @return false if the message was not queued
    */
-  public void send(String message) {
-    logger.info("Sending message: " + message);
+  private boolean enqueue(String message, boolean refuseFull) {
+    logger.debug("Sending message: " + message);
 
-    ws.sendText(message);
+    String command = Protocol.command(message);
+    synchronized (this) {
+      if (state == ConnectionState.CLOSED) {
+        logger.warn("Communicator is closed, dropping {}", message);
+        return false;
+      }
+      Outgoing waiting = latest.get(command);
+      if (waiting != null) {
+        //still not sent, so send this instead
+        waiting.message = message;
+        return true;
+      }
+      if (queue.size() >= MAX_QUEUED) {
+        if (Protocol.droppable(command)) {
+          logger.warn("Send queue is full, dropping {}", message);
+          return false;
+        }
+        if (!dropOldestChat()) {
+          if (refuseFull) {
+            logger.warn("Send queue is full, refusing {}", message);
+            return false;
+          }
+          logger.warn("Send queue is full, queueing {} over the limit", message);
+        }
+      }
+      Outgoing outgoing = new Outgoing(command, message);
+      queue.add(outgoing);
+      if (Protocol.latestOnly(command)) {
+        latest.put(command, outgoing);
+      }
+      if (ws != null && !flushScheduled) {
+        flushScheduled = true;
+        executor.schedule(this::flush, BATCH_DELAY, TimeUnit.MILLISECONDS);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Make room on a full queue by dropping the oldest message which can be dropped
+   *
+   * @return true if a message was dropped
+   */
+  private boolean dropOldestChat() {
+    for (var iterator = queue.iterator(); iterator.hasNext(); ) {
+      Outgoing outgoing = iterator.next();
+      if (Protocol.droppable(outgoing.command)) {
+        iterator.remove();
+        logger.warn("Send queue is full, dropping {}", outgoing.message);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Close the connection and stop trying to reconnect
+   */
+  public void close() {
+    WebSocket socket;
+    synchronized (this) {
+      if (state == ConnectionState.CLOSED) {
+        return;
+      }
+      state = ConnectionState.CLOSED;
+      socket = ws;
+      ws = null;
+      queue.clear();
+      latest.clear();
+      unsent.clear();
+    }
+    poller.clear();
+    executor.shutdownNow();
+    if (socket != null) {
+      socket.disconnect();
+    }
+    for (ConnectionStateListener listener : stateListeners) {
+      listener.stateChanged(ConnectionState.CLOSED);
+    }
   }
 
   /**
@@ -111,10 +514,120 @@ public class Communicator {
   }
 
   /**
-   * Clear all current listeners
+   * Add a handler for one command from the server, called on the communicator's thread with the decoded message
+   *
+   * @param command the command, one of the constants of Protocol
+   * @param handler the handler
+   * @param <T>     the type of the decoded message
+   */
+  public <T> void on(Command<T> command, Consumer<? super T> handler) {
+    router.on(command, handler);
+  }
+
+  /**
+   * Add a handler for one command from the server, called on the JavaFX thread in the batch of the next pulse. Of
+   * several messages of a snapshot command in one batch, only the last is handled. Must be called on the JavaFX
+   * thread.
+   *
+   * @param command the command, one of the constants of Protocol
+   * @param handler the handler
+   * @param <T>     the type of the decoded message
+   */
+  public <T> void onPulse(Command<T> command, Consumer<? super T> handler) {
+    pulseRouter.on(command, handler);
+    if (pulse == null) {
+      pulse = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+          deliverPulse();
+        }
+      };
+    }
+    if (!pulseRunning) {
+      pulseRunning = true;
+      pulse.start();
+    }
+  }
+
+  /**
+   * Route the next batch of waiting messages to the pulse handlers, on the JavaFX thread
+   */
+  private void deliverPulse() {
+    //nothing to deliver to until a handler is added again
+    if (pulseRouter.isEmpty()) {
+      pulse.stop();
+      pulseRunning = false;
+      inbox.clear();
+      return;
+    }
+    String message;
+    while (batch.size() < PULSE_BUDGET && (message = inbox.poll()) != null) {
+      batch.add(message);
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
+    try {
+      pulseRouter.receiveAll(batch);
+    } finally {
+      batch.clear();
+    }
+  }
+
+  /**
+   * Send a request again and again until stopped. A poll of the same request which is already running is shared,
+   * at the shorter interval. While the replies stay the same, the wait between requests grows.
+   *
+   * @param request  the message to send
+   * @param response the command the server replies with
+   * @param interval milliseconds between requests while the replies change
+   */
+  public void poll(String request, Command<?> response, long interval) {
+    poller.start(request, response, interval);
+  }
+
+  /**
+   * Stop polling a request
+   *
+   * @param request the message the poll sends
+   */
+  public void stopPoll(String request) {
+    poller.stop(request);
+  }
+
+  /**
+   * Stop every poll
+   */
+  public void clearPolls() {
+    poller.clear();
+  }
+
+  /**
+   * Clear all current listeners and command handlers, and drop messages waiting for the next pulse
    */
   public void clearListeners() {
     this.handlers.clear();
+    router.clear();
+    pulseRouter.clear();
+    inbox.clear();
+  }
+
+  /**
+   * Add a listener to be told when the connection state changes, called on the communicator's thread
+   *
+   * @param listener the listener to add
+   */
+  public void addStateListener(ConnectionStateListener listener) {
+    stateListeners.add(listener);
+  }
+
+  /**
+   * Remove a connection state listener
+   *
+   * @param listener the listener to remove
+   */
+  public void removeStateListener(ConnectionStateListener listener) {
+    stateListeners.remove(listener);
   }
 
   /**
@@ -129,6 +642,37 @@ public class Communicator {
     for (CommunicationsListener handler : handlers) {
       handler.receiveCommunication(message);
     }
+    router.receiveCommunication(message);
+    poller.received(message.trim());
+    if (!pulseRouter.isEmpty()) {
+      inbox.add(message);
+    }
   }
 
+  /**
+   * a message waiting to be sent
+   */
+  private static class Outgoing {
+
+    /**
+     * the command word of the message
+     */
+    private final String command;
+
+    /**
+     * the message, which can be replaced by a newer one of the same command until it is sent
+     */
+    private String message;
+
+    /**
+     * Create a waiting message
+     *
+     * @param command the command word of the message
+     * @param message the message
+     */
+    private Outgoing(String command, String message) {
+      this.command = command;
+      this.message = message;
+    }
+  }
 }
@@ -0,0 +1,27 @@
+package uk.ac.soton.comp1206.network;
+
+/**
+ * The states a Communicator moves through as it connects to the server, loses the connection and tries again.
+ */
+public enum ConnectionState {
+
+  /**
+   * trying to open the connection
+   */
+  CONNECTING,
+
+  /**
+   * connected, messages are sent straight away
+   */
+  CONNECTED,
+
+  /**
+   * not connected and waiting to try again, messages are queued until the connection is back
+   */
+  DISCONNECTED,
+
+  /**
+   * closed for good, messages are dropped
+   */
+  CLOSED
+}
@@ -0,0 +1,160 @@
+package uk.ac.soton.comp1206.network;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.event.CommunicationsListener;
+
+/**
+ * Routes server messages to the handlers registered for their command.
+ * <p>
+ * The command word is read once per message and looked up in a hash table, and the payload is only decoded when the
+ * command has handlers, once for all of them. Messages are matched on the exact command word, so a chat message
+ * which happens to contain START is never taken for the START command. Handlers are called on the thread which
+ * received the message.
+ */
+public class MessageRouter implements CommunicationsListener {
+
+  /**
+   * the logger of this class
+   */
+  private static final Logger logger = LogManager.getLogger(MessageRouter.class);
+
+  /**
+   * the route of each command word which has handlers
+   */
+  private final Map<String, Route<?>> routes = new ConcurrentHashMap<>();
+
+  /**
+   * goes up each time the handlers are cleared, so a batch stops when its handlers are gone
+   */
+  private volatile int generation;
+
+  /**
+   * Create a router with no handlers
+   */
+  public MessageRouter() {
+  }
+
+  /**
+   * Add a handler for a command
+   *
+   * @param command the command
+   * @param handler called with each decoded message
+   * @param <T>     the type of the decoded message
+   */
+  @SuppressWarnings("unchecked")
+  public <T> void on(Command<T> command, Consumer<? super T> handler) {
+    //commands are only made by Protocol, so each word has one command and one message type
+    Route<T> route = (Route<T>) routes.computeIfAbsent(command.getName(), name -> new Route<>(command));
+    route.handlers.add(handler);
+  }
+
+  /**
+   * Remove every handler
+   */
+  public void clear() {
+    generation++;
+    routes.clear();
+  }
+
+  /**
+   * Get whether there are no handlers
+   *
+   * @return true if no handler has been added since the last clear
+   */
+  public boolean isEmpty() {
+    return routes.isEmpty();
+  }
+
+  /**
+   * Route a batch of messages in order. When a batch has several messages of a snapshot command, only the last of
+   * them is routed, since it replaces the others. If a handler clears the router, for example by changing scene, the
+   * rest of the batch is dropped rather than given to the handlers which were cleared.
+   *
+   * @param messages the messages
+   */
+  public void receiveAll(List<String> messages) {
+    int batchGeneration = generation;
+    String[] trimmed = new String[messages.size()];
+    Route<?>[] batch = new Route<?>[messages.size()];
+    Map<Route<?>, Integer> latest = new HashMap<>();
+    for (int i = 0; i < trimmed.length; i++) {
+      trimmed[i] = messages.get(i).trim();
+      batch[i] = routes.get(Protocol.command(trimmed[i]));
+      if (batch[i] != null && batch[i].command.isSnapshot()) {
+        latest.put(batch[i], i);
+      }
+    }
+    for (int i = 0; i < trimmed.length && generation == batchGeneration; i++) {
+      Route<?> route = batch[i];
+      if (route != null && (!route.command.isSnapshot() || latest.get(route) == i)) {
+        route.deliver(Protocol.payload(trimmed[i]));
+      }
+    }
+  }
+
+  /**
+   * Route a message to the handlers of its command
+   *
+   * @param communication the message that was received
+   */
+  @Override
+  public void receiveCommunication(String communication) {
+    String message = communication.trim();
+    Route<?> route = routes.get(Protocol.command(message));
+    if (route != null) {
+      route.deliver(Protocol.payload(message));
+    }
+  }
+
+  /**
+   * a command and its handlers
+   *
+   * @param <T> the type of the decoded message
+   */
+  private static class Route<T> {
+
+    /**
+     * the command
+     */
+    private final Command<T> command;
+
+    /**
+     * the handlers of the command
+     */
+    private final List<Consumer<? super T>> handlers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Create a route with no handlers
+     *
+     * @param command the command
+     */
+    private Route(Command<T> command) {
+      this.command = command;
+    }
+
+    /**
+     * Decode a payload and pass it to every handler
+     *
+     * @param payload the payload
+     */
+    private void deliver(String payload) {
+      T message;
+      try {
+        message = command.decode(payload);
+      } catch (RuntimeException e) {
+        logger.warn("Malformed {} message: {}", command, payload);
+        return;
+      }
+      for (Consumer<? super T> handler : handlers) {
+        handler.accept(message);
+      }
+    }
+  }
+}
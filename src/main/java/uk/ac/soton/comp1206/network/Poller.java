@@ -0,0 +1,240 @@
+package uk.ac.soton.comp1206.network;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Sends requests to the server again and again, for things like the channel list which the server only sends when
+ * asked, on behalf of every scene of one Communicator.
+ * <p>
+ * Polls are keyed by their request, so a scene asking for a poll which is already running shares it, at the shorter
+ * of the two intervals. Each reply is compared with the last one: while they stay the same the wait doubles, up to
+ * MAX_BACKOFF times the interval, and as soon as one changes it drops back to the interval. Nothing is sent while
+ * the communicator is not connected, as the request would only wait on the send queue, and a request refused by a
+ * full send queue backs off in the same way. Polls run on the
+ * communicator's thread until they are stopped, which GameWindow does when it cleans up a scene.
+ */
+final class Poller {
+
+  /**
+   * the logger of this class
+   */
+  private static final Logger logger = LogManager.getLogger(Poller.class);
+
+  /**
+   * the longest wait, as a multiple of the interval of the poll
+   */
+  private static final int MAX_BACKOFF = 4;
+
+  /**
+   * the communicator which sends the requests
+   */
+  private final Communicator communicator;
+
+  /**
+   * the thread the polls run on
+   */
+  private final ScheduledExecutorService executor;
+
+  /**
+   * the running polls, by request
+   */
+  private final Map<String, Poll> polls = new ConcurrentHashMap<>();
+
+  /**
+   * Create a poller with no polls
+   *
+   * @param communicator sends the requests
+   * @param executor     the thread the polls run on
+   */
+  Poller(Communicator communicator, ScheduledExecutorService executor) {
+    this.communicator = communicator;
+    this.executor = executor;
+  }
+
+  /**
+   * Start polling, or share the poll if the request is already being polled
+   *
+   * @param request  the message to send
+   * @param response the command the server replies with
+   * @param interval milliseconds between requests while the replies change
+   */
+  void start(String request, Command<?> response, long interval) {
+    Poll poll = polls.compute(request, (key, running) -> {
+      if (running == null) {
+        return new Poll(request, response.getName(), interval);
+      }
+      running.shorten(interval);
+      return running;
+    });
+    poll.schedule(0);
+  }
+
+  /**
+   * Stop a poll
+   *
+   * @param request the message the poll sends
+   */
+  void stop(String request) {
+    Poll poll = polls.remove(request);
+    if (poll != null) {
+      poll.cancel();
+    }
+  }
+
+  /**
+   * Stop every poll
+   */
+  void clear() {
+    for (String request : polls.keySet()) {
+      stop(request);
+    }
+  }
+
+  /**
+   * Tell the polls about a message from the server
+   *
+   * @param message the message, trimmed
+   */
+  void received(String message) {
+    if (polls.isEmpty()) {
+      return;
+    }
+    String command = Protocol.command(message);
+    for (Poll poll : polls.values()) {
+      if (poll.response.equals(command)) {
+        poll.replied(message);
+      }
+    }
+  }
+
+  /**
+   * a request sent again and again
+   */
+  private final class Poll implements Runnable {
+
+    /**
+     * the message to send
+     */
+    private final String request;
+
+    /**
+     * the command word of the reply
+     */
+    private final String response;
+
+    /**
+     * milliseconds between requests while the replies change, guarded by this
+     */
+    private long interval;
+
+    /**
+     * milliseconds until the next request, guarded by this
+     */
+    private long delay;
+
+    /**
+     * the last reply, guarded by this
+     */
+    private String last;
+
+    /**
+     * the next request, or null before the first is scheduled, guarded by this
+     */
+    private ScheduledFuture<?> next;
+
+    /**
+     * whether the poll has been stopped, guarded by this
+     */
+    private boolean cancelled;
+
+    /**
+     * Create a poll
+     *
+     * @param request  the message to send
+     * @param response the command word of the reply
+     * @param interval milliseconds between requests while the replies change
+     */
+    private Poll(String request, String response, long interval) {
+      this.request = request;
+      this.response = response;
+      this.interval = interval;
+      this.delay = interval;
+    }
+
+    /**
+     * Use a shorter interval, if it is shorter
+     *
+     * @param interval milliseconds between requests while the replies change
+     */
+    private synchronized void shorten(long interval) {
+      this.interval = Math.min(this.interval, interval);
+      this.delay = Math.min(this.delay, this.interval);
+    }
+
+    /**
+     * Schedule the first request, unless it already has been
+     *
+     * @param wait milliseconds to wait
+     */
+    private synchronized void schedule(long wait) {
+      if (next == null && !cancelled && !executor.isShutdown()) {
+        next = executor.schedule(this, wait, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    /**
+     * Send the request and schedule the next one
+     */
+    @Override
+    public void run() {
+      synchronized (this) {
+        if (cancelled || executor.isShutdown()) {
+          return;
+        }
+        next = executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+      }
+      if (communicator.getState() == ConnectionState.CONNECTED && !communicator.trySend(request)) {
+        //the send queue is full, ask less often until it has room
+        backOff();
+      }
+    }
+
+    /**
+     * Double the wait, up to MAX_BACKOFF times the interval
+     */
+    private synchronized void backOff() {
+      delay = Math.min(delay * 2, interval * MAX_BACKOFF);
+    }
+
+    /**
+     * Back off if the reply is the same as the last one, or go back to the interval if it changed
+     *
+     * @param message the reply
+     */
+    private synchronized void replied(String message) {
+      if (message.equals(last)) {
+        backOff();
+      } else {
+        last = message;
+        delay = interval;
+      }
+      logger.debug("Polling {} every {}ms", request, delay);
+    }
+
+    /**
+     * Stop the poll
+     */
+    private synchronized void cancel() {
+      cancelled = true;
+      if (next != null) {
+        next.cancel(false);
+      }
+    }
+  }
+}
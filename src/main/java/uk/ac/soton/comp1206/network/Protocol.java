@@ -0,0 +1,277 @@
+package uk.ac.soton.comp1206.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The messages the TetrECS server sends, and how each payload is decoded.
+ * <p>
+ * A message is a command word followed by a payload, separated by a space or a new line. Commands with structured
+ * payloads decode into the records below, and the rest are passed on as their payload text. Handlers are registered
+ * for a command with Communicator.on, so each message is matched on its exact command word and decoded once no
+ * matter how many handlers it has.
+ * <p>
+ * Messages sent to the server have the same form. Some of them only say what a value is now, so a newer one makes
+ * an unsent older one useless; latestOnly tells which. Only chat can be dropped when the send queue is full;
+ * droppable tells which.
+ */
+public final class Protocol {
+
+  /**
+   * the channels which can be joined
+   */
+  public static final Command<Channels> CHANNELS = new Command<>("CHANNELS", true,
+      payload -> new Channels(lines(payload)));
+
+  /**
+   * the users in the channel
+   */
+  public static final Command<Users> USERS = new Command<>("USERS", true, payload -> new Users(lines(payload)));
+
+  /**
+   * the scores and lives of the players in a multiplayer game
+   */
+  public static final Command<Scores> SCORES = new Command<>("SCORES", true, Protocol::scores);
+
+  /**
+   * the next piece in a multiplayer game
+   */
+  public static final Command<Piece> PIECE = new Command<>("PIECE", false,
+      payload -> new Piece(Integer.parseInt(payload)));
+
+  /**
+   * the online high scores
+   */
+  public static final Command<HiScores> HISCORES = new Command<>("HISCORES", false, Protocol::hiScores);
+
+  /**
+   * a chat message, as name:message
+   */
+  public static final Command<String> MSG = text("MSG");
+
+  /**
+   * the channel which was joined
+   */
+  public static final Command<String> JOIN = text("JOIN");
+
+  /**
+   * the channel was left
+   */
+  public static final Command<String> PARTED = text("PARTED");
+
+  /**
+   * this user is the host of the channel
+   */
+  public static final Command<String> HOST = text("HOST");
+
+  /**
+   * the multiplayer game has started
+   */
+  public static final Command<String> START = text("START");
+
+  /**
+   * the nickname of this user, or old:new when someone changes theirs
+   */
+  public static final Command<String> NICK = text("NICK");
+
+  /**
+   * a new online high score was saved, as name:score
+   */
+  public static final Command<String> NEWSCORE = text("NEWSCORE");
+
+  /**
+   * the last request failed, with the reason
+   */
+  public static final Command<String> ERROR = text("ERROR");
+
+  /**
+   * the commands we send which only need their latest value
+   */
+  private static final Set<String> LATEST_ONLY = Set.of("SCORE", "LIVES", "BOARD");
+
+  /**
+   * the commands we send which can be dropped when the send queue is full
+   */
+  private static final Set<String> DROPPABLE = Set.of("MSG");
+
+  /**
+   * Not instantiable
+   */
+  private Protocol() {
+  }
+
+  /**
+   * Get the command word of a message
+   *
+   * @param message the message, trimmed
+   * @return the text before the first space or new line
+   */
+  public static String command(String message) {
+    return message.substring(0, commandLength(message));
+  }
+
+  /**
+   * Get the payload of a message
+   *
+   * @param message the message, trimmed
+   * @return the text after the command word, trimmed, which may be empty
+   */
+  public static String payload(String message) {
+    return message.substring(commandLength(message)).trim();
+  }
+
+  /**
+   * Get whether a command we send only needs its latest value, so a newer message replaces an unsent older one
+   *
+   * @param command the command word
+   * @return true for SCORE, LIVES and BOARD
+   */
+  public static boolean latestOnly(String command) {
+    return LATEST_ONLY.contains(command);
+  }
+
+  /**
+   * Get whether a command we send can be dropped when the send queue is full, as nothing waits for a reply to it
+   *
+   * @param command the command word
+   * @return true for chat messages
+   */
+  public static boolean droppable(String command) {
+    return DROPPABLE.contains(command);
+  }
+
+  /**
+   * Find the end of the command word
+   *
+   * @param message the message, trimmed
+   * @return the length of the command word
+   */
+  private static int commandLength(String message) {
+    int end = 0;
+    while (end < message.length() && !Character.isWhitespace(message.charAt(end))) {
+      end++;
+    }
+    return end;
+  }
+
+  /**
+   * the channels which can be joined
+   *
+   * @param names the channel names
+   */
+  public record Channels(List<String> names) {
+  }
+
+  /**
+   * the users in the channel
+   *
+   * @param names the user names
+   */
+  public record Users(List<String> names) {
+  }
+
+  /**
+   * the next piece in a multiplayer game
+   *
+   * @param value the piece number to create it with
+   */
+  public record Piece(int value) {
+  }
+
+  /**
+   * the scores and lives of the players in a multiplayer game
+   *
+   * @param players each player, in the order the server sent them
+   */
+  public record Scores(List<Player> players) {
+
+    /**
+     * one player in a multiplayer game
+     *
+     * @param name  the player's name
+     * @param score the player's score
+     * @param lives the player's lives, 0 when dead
+     * @param dead  whether the player has lost
+     */
+    public record Player(String name, int score, int lives, boolean dead) {
+    }
+  }
+
+  /**
+   * the online high scores
+   *
+   * @param scores each score, in the order the server sent them
+   */
+  public record HiScores(List<Score> scores) {
+
+    /**
+     * one online high score
+     *
+     * @param name  who scored it
+     * @param score the score
+     */
+    public record Score(String name, int score) {
+    }
+  }
+
+  /**
+   * Make a command whose message is its payload text
+   *
+   * @param name the command word
+   * @return the command
+   */
+  private static Command<String> text(String name) {
+    return new Command<>(name, false, Function.identity());
+  }
+
+  /**
+   * Split a payload into its non-empty lines
+   *
+   * @param payload the payload
+   * @return the lines
+   */
+  private static List<String> lines(String payload) {
+    List<String> lines = new ArrayList<>();
+    for (String line : payload.split("\n")) {
+      line = line.trim();
+      if (!line.isEmpty()) {
+        lines.add(line);
+      }
+    }
+    return List.copyOf(lines);
+  }
+
+  /**
+   * Decode a SCORES payload, a name:score:lives line per player where lives may be DEAD
+   *
+   * @param payload the payload
+   * @return the scores
+   */
+  private static Scores scores(String payload) {
+    List<Scores.Player> players = new ArrayList<>();
+    for (String line : lines(payload)) {
+      String[] fields = line.split(":");
+      boolean dead = fields.length > 2 && fields[2].equals("DEAD");
+      int lives = dead || fields.length < 3 ? 0 : Integer.parseInt(fields[2]);
+      players.add(new Scores.Player(fields[0], Integer.parseInt(fields[1]), lives, dead));
+    }
+    return new Scores(List.copyOf(players));
+  }
+
+  /**
+   * Decode a HISCORES payload, a name:score line per score
+   *
+   * @param payload the payload
+   * @return the high scores
+   */
+  private static HiScores hiScores(String payload) {
+    List<HiScores.Score> scores = new ArrayList<>();
+    for (String line : lines(payload)) {
+      String[] fields = line.split(":");
+      scores.add(new HiScores.Score(fields[0], Integer.parseInt(fields[1])));
+    }
+    return new HiScores(List.copyOf(scores));
+  }
+}
@@ -17,6 +17,7 @@ import javafx.util.Duration;
 import javafx.util.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.bot.HintSearch;
 import uk.ac.soton.comp1206.component.*;
 import uk.ac.soton.comp1206.game.Game;
 import uk.ac.soton.comp1206.game.MultiplayerGame;
@@ -85,6 +86,11 @@ public class ChallengeScene extends BaseScene {
    */
   protected GameBoard board;
 
+  /**
+   * shows the best place for the current piece while the mouse is over the board, or null if there is no hint
+   */
+  protected HintOverlay hint;
+
   /**
    * create a new rectangle of timer
    */
@@ -234,6 +240,7 @@ public class ChallengeScene extends BaseScene {
     mainPane.setCenter(board);
     //set the hover on main board
     board.Hover();
+    hint = createHint();
 
     //create a VBox to hold the pieceBoard
     VBox pieceBoardVBox = new VBox(20);
@@ -292,6 +299,9 @@ public class ChallengeScene extends BaseScene {
     game.setGameEndListener(game -> {
       logger.info("Game Over");
       timer.setVisible(false);
+      if (hint != null) {
+        hint.stop();
+      }
       game.endGame();
       multimedia.stopPlaying();
       multimedia.playAudio("transition.wav");
@@ -353,6 +363,15 @@ public class ChallengeScene extends BaseScene {
     }
   }
 
+  /**
+   * Create the overlay which shows the best move
+   *
+   * @return the hint overlay, or null for no hint
+   */
+  protected HintOverlay createHint() {
+    return new HintOverlay(board, game, new HintSearch());
+  }
+
   /**
    * Set up the game object and model
    */
@@ -370,6 +389,9 @@ public class ChallengeScene extends BaseScene {
   public void initialise() {
     logger.info("Initialising Challenge");
     game.start();
+    if (hint != null) {
+      hint.start();
+    }
     this.multimedia.playBackgroundMusic("game.wav");
     scene.setOnKeyPressed(this::keyboardSetting);
     getHighScore();
@@ -391,6 +413,9 @@ public class ChallengeScene extends BaseScene {
    */
   public void showEnd() {
     timer.setVisible(false);
+    if (hint != null) {
+      hint.stop();
+    }
     multimedia.stopPlaying();
     multimedia.playAudio("transition.wav");
     gameWindow.startMenu();
@@ -468,9 +493,7 @@ public class ChallengeScene extends BaseScene {
         logger.info("Escape Pressed");
       }
       case Q, Z, OPEN_BRACKET -> {
-        for (int i = 0; i < 3; i++) {
-          game.rotateCurrentPiece(); // Rotates the current piece left
-        }
+        game.rotateCurrentPiece(3); // Rotates the current piece left
         pieceBoard.setPiece(game.getCurrentPiece());
       }
       case E, C, CLOSE_BRACKET -> {
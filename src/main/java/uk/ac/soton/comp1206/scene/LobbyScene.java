@@ -1,7 +1,6 @@
 package uk.ac.soton.comp1206.scene;
 
 
-import javafx.application.Platform;
 import javafx.collections.ObservableList;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -14,6 +13,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.media.Multimedia;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.Protocol;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
@@ -31,11 +31,6 @@ public class LobbyScene extends BaseScene {
    * the logger of lobbyScene
    */
   private static final Logger logger = LogManager.getLogger(LobbyScene.class);
-  /**
-   * used to send message constantly
-   */
-  protected Timer timer;
-
   /**
    * communicator used
    */
@@ -131,17 +126,19 @@ public class LobbyScene extends BaseScene {
   @Override
   public void initialise() {
     multimedia.playBackgroundMusic("menu.mp3");
-    timer = new Timer();
-    //ask for channel from time to time
-    timer.scheduleAtFixedRate(new TimerTask() {
-      //ask for channel from serve every 2 seconds
-      @Override
-      public void run() {
-        Platform.runLater(() -> communicator.send("LIST"));
-      }
-    }, 20, 1000);
-    //add message to communicator to handle received messages
-    communicator.addListener(message -> Platform.runLater(() -> handleListen(message.trim())));
+    //ask for channels every second while they change, stopped when the scene is cleaned up
+    communicator.poll("LIST", Protocol.CHANNELS, 1000);
+    //handle each command from the server on the JavaFX thread
+    communicator.onPulse(Protocol.CHANNELS, channels -> showChannels(channels.names()));
+    communicator.onPulse(Protocol.JOIN, this::Join);
+    communicator.onPulse(Protocol.MSG, this::showMessage);
+    //we are the host,therefore we could start a game
+    communicator.onPulse(Protocol.HOST, host -> startGame.setVisible(true));
+    communicator.onPulse(Protocol.USERS, users -> showGamer(users.names()));
+    //if we get start message,we then open a game
+    communicator.onPulse(Protocol.START, start -> startMultiPlay());
+    communicator.onPulse(Protocol.NICK, nick -> nickName = nick);
+    communicator.onPulse(Protocol.ERROR, this::showError);
 
     scene.setOnKeyPressed(keyEvent -> {
       if (keyEvent.getCode() == KeyCode.ESCAPE) {
@@ -352,66 +349,53 @@ public class LobbyScene extends BaseScene {
   }
 
   /**
-   * used to handle the received messages
+   * show the channels available
    *
-   * @param message received messages
+   * @param channels the channel names
    */
-  public void handleListen(String message) {
-
+  public void showChannels(List<String> channels) {
+    channelBox.getChildren().clear();
+    for (String channel : channels) {
+      Text textChannel = new Text(channel);
+      textChannel.setOnMouseClicked(mouseEvent -> communicator.send("JOIN " + channel));
 
-    if (message.contains("CHANNELS")) { //displays all channels available
-      channelBox.getChildren().clear();
-      message = message.replace("CHANNELS", "").trim();
-      String[] channelArray = message.split("\n");
+      textChannel.setOnMouseEntered(mouseEvent -> textChannel.setStyle("-fx-text-fill: blue"));
+      textChannel.setOnMouseExited(mouseEvent -> textChannel.setStyle("-fx-text-fill: white"));
 
-      for (String channel : channelArray) {
-        Text textChannel = new Text(channel);
-        textChannel.setOnMouseClicked(mouseEvent -> communicator.send("JOIN " + channel));
-
-        textChannel.setOnMouseEntered(mouseEvent -> textChannel.setStyle("-fx-text-fill: blue"));
-        textChannel.setOnMouseExited(mouseEvent -> textChannel.setStyle("-fx-text-fill: white"));
+      textChannel.getStyleClass().add("channelItem");
+      channelBox.getChildren().add(textChannel);
+    }
+  }
 
-        textChannel.getStyleClass().add("channelItem");
-        channelBox.getChildren().add(textChannel);
-      }
-    } else if (message.contains("JOIN")) {
-      //join the channel
-      String[] joinArray = message.split(" ");
-      Join(joinArray[1]);
-    } else if (message.contains("MSG")) {
-      message = message.replace("MSG ", "");
-      LocalTime currentTime = LocalTime.now();
-      DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
-      String formattedTime = currentTime.format(formatter);
-      String messageSend = "[" + formattedTime + "] " + message;
-      Text messageText = new Text(messageSend);
-      messages.getChildren().add(messageText);
-    } else if (message.contains("HOST")) {
-      //we are the host,therefore we could start a game
-      startGame.setVisible(true);
-    } else if (message.contains("USERS")) {
-      message = message.replace("USERS ", "");
-      showGamer(message);
-    } else if (message.contains("START")) {
-      //if we get start message,we then open a game
-      startMultiPlay();
-    } else if (message.contains("NICK")) {
-      message = message.replace("NICK ", "");
-      nickName = message;
-    } else if (message.contains("ERROR")) {
-      //handle if receive error
-      message = message.replace("ERROR ", "");
-      logger.error(message);
-
-      Stage errorWindow = new Stage();       // Create a new stage for the pop-up window
-      var box = new HBox();
-      box.setAlignment(Pos.CENTER);
-      box.getChildren().addAll(new Label(message));
-      Scene scene = new Scene(box, 200, 100);     // Create a scene for the pop-up window
-      errorWindow.setScene(scene);      // Set the scene for the pop-up window
-      errorWindow.show();
+  /**
+   * show a chat message in the channel
+   *
+   * @param message the message, as name:message
+   */
+  public void showMessage(String message) {
+    LocalTime currentTime = LocalTime.now();
+    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
+    String formattedTime = currentTime.format(formatter);
+    String messageSend = "[" + formattedTime + "] " + message;
+    Text messageText = new Text(messageSend);
+    messages.getChildren().add(messageText);
+  }
 
-    }
+  /**
+   * show an error from the server in a pop-up window
+   *
+   * @param message the error
+   */
+  public void showError(String message) {
+    logger.error(message);
+
+    Stage errorWindow = new Stage();       // Create a new stage for the pop-up window
+    var box = new HBox();
+    box.setAlignment(Pos.CENTER);
+    box.getChildren().addAll(new Label(message));
+    Scene scene = new Scene(box, 200, 100);     // Create a scene for the pop-up window
+    errorWindow.setScene(scene);      // Set the scene for the pop-up window
+    errorWindow.show();
   }
 
   /**
@@ -437,15 +421,14 @@ public class LobbyScene extends BaseScene {
   /**
    * show all gamers in current game
    *
-   * @param gamer the gamer message
+   * @param players the names of the gamers
    */
-  public void showGamer(String gamer) {
+  public void showGamer(List<String> players) {
 
     //initialise the list and set
     gamerList.getChildren().clear();
     gamers.clear();
-    String[] playerArr = gamer.split("\n");
-    for (String s : playerArr) {
+    for (String s : players) {
       gamers.add(s);
       Text text = new Text(s);
       text.getStyleClass().add("heading");
@@ -1,6 +1,5 @@
 package uk.ac.soton.comp1206.scene;
 
-import javafx.application.Platform;
 import javafx.beans.property.SimpleListProperty;
 import javafx.collections.FXCollections;
 import javafx.geometry.Pos;
@@ -16,15 +15,15 @@ import javafx.scene.text.TextAlignment;
 import javafx.util.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.component.HintOverlay;
 import uk.ac.soton.comp1206.component.Leaderboard;
 import uk.ac.soton.comp1206.game.MultiplayerGame;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.Protocol;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
 import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 /**
  * multiplayerScene which is used to show a multi-game scene, this could show all the useful UI in a multi-game
@@ -73,10 +72,6 @@ public class MultiplayerScene extends ChallengeScene {
    * the set of gamers
    */
   protected HashSet<String> gamerSet;
-  /**
-   * used to send scores continuously
-   */
-  private ScheduledThreadPoolExecutor scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(1);
 
   /**
    * Create a multiPlayer challenge scene
@@ -98,9 +93,10 @@ public class MultiplayerScene extends ChallengeScene {
   public void initialise() {
     super.initialise();
     communicator = gameWindow.getCommunicator();
-    communicator.addListener(message -> Platform.runLater(() -> handleListen(message.trim())));
-    //we have ask for online scores when we create the
-    scheduledThreadPoolExecutor.scheduleAtFixedRate(() -> communicator.send("SCORES"), 1000, 2000, TimeUnit.MILLISECONDS);
+    communicator.onPulse(Protocol.MSG, this::showMessage);
+    communicator.onPulse(Protocol.SCORES, this::showScores);
+    //ask for the scores of every player every 2 seconds while they change
+    communicator.poll("SCORES", Protocol.SCORES, 2000);
 
   }
 
@@ -169,40 +165,32 @@ public class MultiplayerScene extends ChallengeScene {
 
 
   /**
-   * handle the received message
+   * add a chat message to the box
    *
-   * @param message the received messages from server
+   * @param message the message, as name:message
    */
-  public void handleListen(String message) {
-
-    if (message.contains("MSG")) {
-      //add received message to box
-      message = message.replace("MSG", "");
-      Text messageText = new Text(message);
-      messageText.getStyleClass().add("messages Text");
-      chatBox.getChildren().add(messageText);
-    } else if (message.contains("SCORES")) {
-      //if we received online scores
-      message = message.replace("SCORES ", "");
-      String[] scoreArr = message.split("\n");
-      multiplayerScores.clear();
-      submitScores.clear();
-      for (String s : scoreArr) {
-        String[] state = s.split(":");
-
-        var submit = new Pair<>(state[0], Integer.parseInt(state[1]));
-        submitScores.add(submit);
-
-        if (s.contains("DEAD")) {
-          leaderboard.cross(state[0] + ": " + state[1] + " lives: ");
-          var entry = new Pair<>(state[0] + ": " + state[1] + " lives: ", 0);
-          this.multiplayerScores.add(entry);
-        } else {
-          var entry = new Pair<>(state[0] + ": " + state[1] + " lives: ", Integer.parseInt(state[2]));
-          this.multiplayerScores.add(entry);
-        }
+  public void showMessage(String message) {
+    Text messageText = new Text(message);
+    messageText.getStyleClass().add("messages Text");
+    chatBox.getChildren().add(messageText);
+  }
 
+  /**
+   * show the scores and lives of every player
+   *
+   * @param scores the scores from the server
+   */
+  public void showScores(Protocol.Scores scores) {
+    multiplayerScores.clear();
+    submitScores.clear();
+    for (Protocol.Scores.Player player : scores.players()) {
+      submitScores.add(new Pair<>(player.name(), player.score()));
+
+      String label = player.name() + ": " + player.score() + " lives: ";
+      if (player.dead()) {
+        leaderboard.cross(label);
       }
+      this.multiplayerScores.add(new Pair<>(label, player.lives()));
     }
   }
 
@@ -215,6 +203,16 @@ public class MultiplayerScene extends ChallengeScene {
     logger.info("Starting a new multiplayer game");
   }
 
+  /**
+   * no hint in a multiplayer game, the other players do not get one
+   *
+   * @return null
+   */
+  @Override
+  protected HintOverlay createHint() {
+    return null;
+  }
+
   /**
    * override the keyboardInput,which could handle chat in playing game
    *
@@ -278,6 +276,6 @@ public class MultiplayerScene extends ChallengeScene {
       multimedia.playAudio("transition.wav");
       gameWindow.startMenu();
     }
-    scheduledThreadPoolExecutor.shutdown();
+    communicator.stopPoll("SCORES");
   }
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
 package uk.ac.soton.comp1206.scene;
 
-import javafx.application.Platform;
 import javafx.beans.property.SimpleListProperty;
 import javafx.collections.FXCollections;
 import javafx.geometry.Pos;
@@ -19,6 +18,7 @@ import uk.ac.soton.comp1206.game.Game;
 import uk.ac.soton.comp1206.game.MultiplayerGame;
 import uk.ac.soton.comp1206.media.Multimedia;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.Protocol;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
@@ -169,7 +169,8 @@ public class ScoresScene extends BaseScene {
     loadOnlineScores();
 
     //add a new listener to communicator which send us online score list with correspond protocol
-    communicator.addListener(message -> Platform.runLater(() -> receiveCommunication(message.trim())));
+    communicator.onPulse(Protocol.HISCORES, this::showOnlineScores);
+    communicator.onPulse(Protocol.NEWSCORE, newScore -> reloadOnlineScores());
 
   }
 
@@ -354,47 +355,33 @@ public class ScoresScene extends BaseScene {
   }
 
   /**
-   * handle received messages
+   * show the online scores, and send ours if it beats the lowest of them
    *
-   * @param message received messages
+   * @param hiScores the online high scores
    */
-  public void receiveCommunication(String message) {
-    try {
-
-      if (message.contains("HISCORES")) {
-        //replace the HISCORE with empty,therefore we could split it easier
-        message = message.replace("HISCORES", "");
-        //use \n as separator
-        String[] pairs = message.split("\n");
-
-        for (String pair : pairs) {
-          //adds scores and name to remoteScoresList
-          String[] scoreName = pair.split(":");
-          //for every pair in the pairs,we use : as separator and put them into remoteScore
-          remoteScores.add(new Pair<>(scoreName[0], Integer.parseInt(scoreName[1])));
-        }
-      }
-      if (message.contains("NEWSCORE")) {
-        remoteScores.clear();
-        loadOnlineScores();
-        scores = 0;
-      } else if (remoteScores.get(remoteScores.size() - 1).getValue() < scores) {
-        if (!(game instanceof MultiplayerGame)) {
-          writeOnlineScore();
-          logger.info("send current new high score");
-        }
-        // If the score is greater than the lowest score on the online score list
-        // we would add the current data into online high score
-        localScore.setVisible(true);
-        onlineScore.setVisible(true);
-      } else {
-        localScore.setVisible(true);
-        onlineScore.setVisible(true);
+  public void showOnlineScores(Protocol.HiScores hiScores) {
+    for (Protocol.HiScores.Score score : hiScores.scores()) {
+      //adds scores and name to remoteScoresList
+      remoteScores.add(new Pair<>(score.name(), score.score()));
+    }
+    // If the score is greater than the lowest score on the online score list
+    // we would add the current data into online high score
+    if (!remoteScores.isEmpty() && remoteScores.get(remoteScores.size() - 1).getValue() < scores) {
+      if (!(game instanceof MultiplayerGame)) {
+        writeOnlineScore();
+        logger.info("send current new high score");
       }
-    } catch (Exception e) {
-      System.out.println("Exception ignored: " + e.getMessage());
     }
+    localScore.setVisible(true);
+    onlineScore.setVisible(true);
   }
-}
-
 
+  /**
+   * a new online score was saved, so load the list again
+   */
+  public void reloadOnlineScores() {
+    remoteScores.clear();
+    loadOnlineScores();
+    scores = 0;
+  }
+}
@@ -78,6 +78,7 @@ public class GameWindow {
 
     //Setup communicator
     communicator = new Communicator("ws://ofb-labs.soton.ac.uk:9700");
+    communicator.addStateListener(state -> logger.info("Server connection: " + state));
 
     //Go to menu
     startMenu();
@@ -186,6 +187,7 @@ public class GameWindow {
   public void cleanup() {
     logger.info("Clearing up previous scene");
     communicator.clearListeners();
+    communicator.clearPolls();
   }
 
   /**